@@ -1,30 +1,47 @@
 package mygroup;
 import java.util.logging.ConsoleHandler;
+import java.util.logging.Handler;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 /**
  * Provides a single, centralized java.util.logging.Logger instance for the entire application.
- * Configures a dedicated ConsoleHandler (at INFO level by default) and disables
- * parent handlers to prevent duplicate output. Callers obtain the shared logger
- * via {@link #get()}
+ * Configures a dedicated ConsoleHandler and disables parent handlers to prevent duplicate
+ * output. The level is read from the {@code log.level} setting (default {@code INFO}, or
+ * any other {@link Level} name such as {@code FINE}). Unless {@code log.async} is
+ * {@code false}, records are written by an {@link AsyncLogHandler} with a buffer of
+ * {@code log.bufferSize} records (default 8192), so logging never waits for the console.
+ * Callers obtain the shared logger via {@link #get()}
  */
 public final class AppLogger {
     private static final Logger INSTANCE = Logger.getLogger("mygroup");
-  
+
     static {
+      Level level = parseLevel(Settings.get("log.level", "INFO"));
       INSTANCE.setUseParentHandlers(false);
-      INSTANCE.setLevel(Level.INFO);
+      INSTANCE.setLevel(level);
       ConsoleHandler ch = new ConsoleHandler();
-      ch.setLevel(Level.INFO);
-      INSTANCE.addHandler(ch);
-      
+      ch.setLevel(level);
+      Handler handler = ch;
+      if (Settings.getBoolean("log.async", true)) {
+        handler = new AsyncLogHandler(ch, Settings.getInt("log.bufferSize", 8192));
+        handler.setLevel(level);
+      }
+      INSTANCE.addHandler(handler);
+
     }
-    
+
     private AppLogger() {}
-  
+
     public static Logger get() {
       return INSTANCE;
     }
+
+    private static Level parseLevel(String name) {
+      try {
+        return Level.parse(name.toUpperCase());
+      } catch (IllegalArgumentException e) {
+        throw new IllegalArgumentException("Invalid log level for setting log.level: " + name);
+      }
+    }
   }
-  
\ No newline at end of file
@@ -1,23 +1,98 @@
 package mygroup;
 import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Arrays;
 
 
 public class Application {
 
     public static void main(String[] args) throws IOException, InterruptedException {
+        MetricsServer metricsServer = MetricsServer.startIfConfigured();
+        ReportServer reportServer = null;
+        // the servers' dispatcher threads would keep the JVM alive after a failure
+        try {
+            reportServer = ReportServer.startIfConfigured();
+            run(args, reportServer);
+        } finally {
+            stop(metricsServer, reportServer);
+        }
+    }
+
+    private static void run(String[] args, ReportServer reportServer) throws InterruptedException {
+        if (Arrays.asList(args).contains("--daemon") || Settings.getBoolean("daemon.enabled", false)) {
+            runDaemon(reportServer);
+            return;
+        }
+        String idsFile = Settings.get("crawl.idsFile", null);
+        if (idsFile != null) {
+            runCrawl(Path.of(idsFile), reportServer);
+            Metrics.exportIfConfigured();
+            return;
+        }
+        Client client = new Client();
+        String replay = Settings.get("snapshot.replay", null);
+        if (replay != null) {
+            client.loadSnapshot(Path.of(replay));
+        } else {
+            client.run();
+        }
+        String snapshot = Settings.get("snapshot.write", null);
+        if (snapshot != null) {
+            client.writeSnapshot(Path.of(snapshot));
+        }
+        GenreMap genreMap = new GenreMap(client.getGameList());
+        Metrics.time("genres", genreMap::addFromResource);
+        Metrics.count("genres_mapped", genreMap.getMap().size());
+        DatabaseManager dbm = new DatabaseManager(client,genreMap);
+        dbm.publishTo(reportServer);
+        if (Settings.getBoolean("db.enabled", true)) {
+            dbm.run();
+        } else {
+            dbm.runOffline();
+        }
+        Metrics.exportIfConfigured();
+    }
+
+    private static void stop(MetricsServer metricsServer, ReportServer reportServer) {
+        if (metricsServer != null) {
+            metricsServer.stop();
+        }
+        if (reportServer != null) {
+            reportServer.stop();
+        }
+    }
+
+    private static void runCrawl(Path idsFile, ReportServer reportServer) {
+        if (!Settings.getBoolean("db.enabled", true)) {
+            throw new IllegalStateException("Crawling needs the database, db.enabled must not be false");
+        }
+        Client client = new Client();
+        GenreMap genreMap = new GenreMap(client.getGameList());
+        DatabaseManager dbm = new DatabaseManager(client,genreMap);
+        dbm.publishTo(reportServer);
+        Metrics.time("genres", genreMap::loadIndex);
+        dbm.open(true);
+        try {
+            new Crawler(client).run(idsFile, batch -> {
+                Metrics.time("genres", () -> genreMap.resolve(batch));
+                dbm.write(batch);
+            });
+            dbm.compactHistory();
+            dbm.writeResults();
+        } finally {
+            dbm.close();
+        }
+    }
+
+    private static void runDaemon(ReportServer reportServer) throws InterruptedException {
         Client client = new Client();
-        client.run();
         GenreMap genreMap = new GenreMap(client.getGameList());
-        genreMap.addFromResource();
         DatabaseManager dbm = new DatabaseManager(client,genreMap);
-        dbm.run();
-        dbm.writeResultToFile();
-        
-        
-        
-        
-        
-        
-        
+        dbm.publishTo(reportServer);
+        Daemon daemon = new Daemon(client, genreMap, dbm, Settings.getBoolean("db.enabled", true),
+            Settings.getLong("daemon.intervalSeconds", 3600));
+        Runtime.getRuntime().addShutdownHook(new Thread(daemon::stop));
+        daemon.start();
+        daemon.awaitTermination();
     }
 }
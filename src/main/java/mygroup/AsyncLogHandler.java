@@ -0,0 +1,155 @@
+package mygroup;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * Hands log records to another handler on a background thread, so that the threads
+ * doing the work never wait for the console. Records are kept in a bounded ring buffer.
+ * When it is full, records below {@code WARNING} are dropped and counted, and warnings
+ * and errors wait for space. The number of dropped records is logged once the writer
+ * catches up. Records are formatted and written by the background thread in the order
+ * they were published.
+ *
+ * <p>After {@link #close()} the remaining records are written and later records go to
+ * the other handler directly.
+ */
+public class AsyncLogHandler extends Handler {
+    private final Handler target;
+    private final BlockingQueue<LogRecord> buffer;
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong queued = new AtomicLong();
+    private final Object drained = new Object();
+    private long written; // guarded by drained, advanced whenever the buffer runs empty
+    private final Thread writer;
+    private volatile boolean closed;
+
+    /**
+     * Constructs the handler and starts its writer thread.
+     *
+     * @param target     The handler that writes the records.
+     * @param bufferSize The number of records the ring buffer holds.
+     */
+    public AsyncLogHandler(Handler target, int bufferSize) {
+        if (bufferSize < 1) {
+            throw new IllegalArgumentException("Log buffer size must be at least 1");
+        }
+        this.target = target;
+        this.buffer = new ArrayBlockingQueue<LogRecord>(bufferSize);
+        this.writer = new Thread(this::drain, "log-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (!isLoggable(record)) {
+            return;
+        }
+        if (closed) {
+            target.publish(record);
+            return;
+        }
+        // the caller is found by walking the stack, which only works on the calling thread
+        record.getSourceClassName();
+        if (buffer.offer(record)) {
+            queued.incrementAndGet();
+            return;
+        }
+        if (record.getLevel().intValue() < Level.WARNING.intValue()) {
+            dropped.incrementAndGet();
+            Metrics.count("log_dropped", 1);
+            return;
+        }
+        try {
+            buffer.put(record);
+            queued.incrementAndGet();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            target.publish(record);
+        }
+    }
+
+    private void drain() {
+        long count = 0;
+        try {
+            while (!closed || !buffer.isEmpty()) {
+                LogRecord record = buffer.poll(100, TimeUnit.MILLISECONDS);
+                if (record != null) {
+                    target.publish(record);
+                    count++;
+                }
+                if (buffer.isEmpty()) {
+                    reportDropped();
+                    target.flush();
+                    synchronized (drained) {
+                        written += count;
+                        count = 0;
+                        drained.notifyAll();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void reportDropped() {
+        long count = dropped.getAndSet(0);
+        if (count > 0) {
+            LogRecord notice = new LogRecord(Level.WARNING, "Log buffer full, dropped " + count + " records");
+            notice.setLoggerName(AppLogger.get().getName());
+            notice.setSourceClassName(AsyncLogHandler.class.getName());
+            notice.setSourceMethodName("publish");
+            target.publish(notice);
+        }
+    }
+
+    /**
+     * Waits until the records published so far have been written, for at most a second.
+     * The writer thread wakes the waiting threads each time it has emptied the buffer.
+     */
+    @Override
+    public void flush() {
+        long goal = queued.get();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(1);
+        try {
+            synchronized (drained) {
+                while (written < goal && writer.isAlive()) {
+                    long remaining = deadline - System.nanoTime();
+                    if (remaining <= 0) {
+                        break;
+                    }
+                    TimeUnit.NANOSECONDS.timedWait(drained, remaining);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        target.flush();
+    }
+
+    /**
+     * Writes the buffered records, stops the writer thread and flushes the other handler.
+     * The other handler is left open.
+     */
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        LogRecord record;
+        while ((record = buffer.poll()) != null) {
+            target.publish(record);
+        }
+        reportDropped();
+        target.flush();
+    }
+}
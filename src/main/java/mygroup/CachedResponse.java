@@ -0,0 +1,43 @@
+package mygroup;
+
+/**
+ * A response body held by a {@link ResponseCache}, together with the validators
+ * needed to revalidate it with a conditional GET.
+ *
+ * @param body         The response body.
+ * @param etag         The {@code ETag} header, or {@code null} if the server sent none.
+ * @param lastModified The {@code Last-Modified} header, or {@code null} if the server sent none.
+ * @param fetchedAt    When the body was last fetched or revalidated, in epoch milliseconds.
+ */
+public record CachedResponse(String body, String etag, String lastModified, long fetchedAt) {
+
+    /**
+     * Checks whether the entry is young enough to be used without contacting the server.
+     *
+     * @param ttlMillis The time to live in milliseconds.
+     * @param now       The current time in epoch milliseconds.
+     * @return {@code true} if the entry is still fresh.
+     */
+    public boolean isFresh(long ttlMillis, long now) {
+        return now - fetchedAt < ttlMillis;
+    }
+
+    /**
+     * Checks whether the entry can be revalidated with a conditional request.
+     *
+     * @return {@code true} if an {@code ETag} or {@code Last-Modified} value is present.
+     */
+    public boolean hasValidator() {
+        return etag != null || lastModified != null;
+    }
+
+    /**
+     * Returns a copy of this entry marked as revalidated at the given time.
+     *
+     * @param now The revalidation time in epoch milliseconds.
+     * @return The refreshed entry.
+     */
+    public CachedResponse revalidated(long now) {
+        return new CachedResponse(body, etag, lastModified, now);
+    }
+}
@@ -0,0 +1,105 @@
+package mygroup;
+
+/**
+ * Stops sending requests to a host that keeps failing. After {@code failureThreshold}
+ * consecutive failures the breaker opens and rejects every request for
+ * {@code openMillis}. It then lets a single trial request through: if that succeeds the
+ * breaker closes again, if it fails the breaker stays open for another period. The
+ * breaker is safe to share between threads.
+ */
+public class CircuitBreaker {
+    private enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+    private State state = State.CLOSED;
+    private int failures;
+    private long openedAt;
+
+    /**
+     * Constructs a closed breaker.
+     *
+     * @param failureThreshold The number of consecutive failures that opens the breaker.
+     * @param openMillis       How long the breaker stays open before a trial request.
+     */
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold < 1 || openMillis < 0) {
+            throw new IllegalArgumentException("Invalid circuit breaker settings");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Asks whether a request may be sent now. Every permitted request must be followed
+     * by {@link #onSuccess()} or {@link #onFailure()}.
+     *
+     * @return {@code true} if the request may be sent.
+     */
+    public synchronized boolean tryAcquire() {
+        switch (state) {
+            case CLOSED:
+                return true;
+            case OPEN:
+                if (System.currentTimeMillis() - openedAt < openMillis) {
+                    return false;
+                }
+                state = State.HALF_OPEN;
+                return true;
+            default:
+                // a trial request is already in flight
+                return false;
+        }
+    }
+
+    /**
+     * Records a request that reached a healthy host, closing the breaker.
+     */
+    public synchronized void onSuccess() {
+        failures = 0;
+        state = State.CLOSED;
+    }
+
+    /**
+     * Records a failed request, opening the breaker when the threshold is reached or
+     * the trial request failed.
+     */
+    public synchronized void onFailure() {
+        failures++;
+        if (state == State.HALF_OPEN || failures >= failureThreshold) {
+            if (state != State.OPEN) {
+                Metrics.count("fetch_circuit_trips", 1);
+            }
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+        }
+    }
+
+    /**
+     * Estimates how long requests will still be rejected. While the trial request of a
+     * half-open breaker is in flight, its outcome is unknown, so the shorter of the open
+     * period and one second is returned.
+     *
+     * @return The time in milliseconds until the breaker may let a request through, or 0
+     *         if it does now.
+     */
+    public synchronized long remainingOpenMillis() {
+        switch (state) {
+            case OPEN:
+                return Math.max(0, openedAt + openMillis - System.currentTimeMillis());
+            case HALF_OPEN:
+                return Math.min(openMillis, 1000);
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Checks whether the breaker currently lets requests through.
+     *
+     * @return {@code false} while the breaker is open or a trial request is in flight.
+     */
+    public synchronized boolean isClosed() {
+        return state == State.CLOSED;
+    }
+}
@@ -0,0 +1,30 @@
+package mygroup;
+import java.io.IOException;
+
+/**
+ * Signals that a request was not sent because the circuit breaker of its host is open.
+ */
+public class CircuitOpenException extends IOException {
+    private static final long serialVersionUID = 1L;
+    private final long retryAfterMillis;
+
+    /**
+     * Constructs the exception.
+     *
+     * @param host             The host whose breaker is open.
+     * @param retryAfterMillis How long the breaker is expected to stay open.
+     */
+    public CircuitOpenException(String host, long retryAfterMillis) {
+        super("Circuit breaker open for " + host + ", request not sent");
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Gets how long to wait before sending another request to the host.
+     *
+     * @return The delay in milliseconds.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+}
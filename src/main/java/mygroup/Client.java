@@ -1,18 +1,24 @@
 package mygroup;
-import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import java.io.IOException;
 import java.io.InputStream;
-import java.net.URI;
+import java.nio.file.Path;
 import java.util.logging.Logger;
 import java.util.logging.Level;
 
@@ -23,44 +29,164 @@ import java.util.logging.Level;
  */
 public class Client {
     
-    private final HttpClient client;
+    private final ResilientHttpClient client;
     private final ObjectMapper objectMapper;
-    private Map<String, String> savedData;
+    private final int concurrency;
+    private final boolean streaming;
+    private final boolean compression;
+    private final StreamingGameParser streamingParser;
+    private final ResponseCache responseCache;
+    private final long cacheTtlMillis;
     private List<Game> gameList;
+    private List<String> failedUrls;
+    private List<UrlEntry> entries;
+    private volatile boolean changed;
+    private long referenceEpoch;
+    private static final Pattern STEAM_ID = Pattern.compile("[?&]steamid=(\\d{1,18})(?:&|$)");
     private static final Logger logger = AppLogger.get();
+
+    /**
+     * A single parsed line of urls.txt.
+     */
+    record UrlEntry(String url, String[] pathToRoot, String[] keywords) {
+
+        /**
+         * Builds the same request for another account by replacing the value of the
+         * {@code steamid} query parameter.
+         *
+         * @param steamId the account to request
+         * @return the entry for that account
+         */
+        UrlEntry withSteamId(String steamId) {
+            if (!url.matches(".*[?&]steamid=.*")) {
+                throw new IllegalArgumentException("URL has no steamid parameter: " + redact(url));
+            }
+            return new UrlEntry(url.replaceAll("([?&]steamid=)[^&]*", "$1" + Matcher.quoteReplacement(steamId)), pathToRoot, keywords);
+        }
+    }
     
     /**
      * Constructs a new {@code Client} instance, initializing the HTTP client,
-     * JSON object mapper, and data storage structures.
+     * JSON object mapper, and data storage structures. The number of concurrent
+     * fetches is read from the {@code fetch.concurrency} setting (default 1, sequential)
+     * and streaming extraction is enabled by the {@code fetch.streaming} setting.
      */
     public Client() {
-        client = HttpClient.newHttpClient();
+        this(Settings.getInt("fetch.concurrency", 1), Settings.getBoolean("fetch.streaming", false));
+    }
+
+    /**
+     * Constructs a new {@code Client} instance that fetches up to {@code concurrency}
+     * URLs at a time. A value of 1 keeps the sequential, fail-fast behaviour.
+     * Responses are cached according to the {@code cache.*} settings, and requests are
+     * sent with the timeouts, retries, hedging and circuit breakers described by the
+     * {@code fetch.*} settings of {@link ResilientHttpClient}. Compressed responses are
+     * asked for unless the {@code fetch.compression} setting is {@code false}.
+     *
+     * @param concurrency the maximum number of requests in flight
+     * @param streaming   whether responses are parsed as a stream instead of being
+     *                    buffered and turned into a tree
+     */
+    public Client(int concurrency, boolean streaming) {
+        this(concurrency, streaming, defaultCache(), Settings.getLong("cache.ttlSeconds", 300) * 1000);
+    }
+
+    /**
+     * Constructs a new {@code Client} instance with an explicit response cache.
+     *
+     * @param concurrency    the maximum number of requests in flight
+     * @param streaming      whether responses are parsed as a stream instead of being
+     *                       buffered and turned into a tree
+     * @param responseCache  the cache used for buffered responses
+     * @param cacheTtlMillis how long a cached response is used without revalidation
+     */
+    public Client(int concurrency, boolean streaming, ResponseCache responseCache, long cacheTtlMillis) {
+        if (concurrency < 1) {
+            throw new IllegalArgumentException("Fetch concurrency must be at least 1");
+        }
+        this.concurrency = concurrency;
+        this.streaming = streaming;
+        client = new ResilientHttpClient();
+        compression = Settings.getBoolean("fetch.compression", true);
         objectMapper = new ObjectMapper();
-        savedData = new HashMap<String,String>();
+        streamingParser = new StreamingGameParser(objectMapper.getFactory());
+        this.responseCache = responseCache;
+        this.cacheTtlMillis = cacheTtlMillis;
         gameList = new ArrayList<Game>();
+        failedUrls = new ArrayList<String>();
         
     }
     
     /**
-     * Runs the client, performing the main operations of reading URLs,
-     * formatting times, and filtering non-played games.
+     * Builds the response cache described by the settings: an in-memory LRU tier of
+     * {@code cache.maxEntries} responses (default 256), backed by an on-disk tier in
+     * {@code cache.dir} when that setting is present.
+     *
+     * @return the configured cache
+     */
+    private static ResponseCache defaultCache() {
+        ResponseCache memory = new MemoryResponseCache(Settings.getInt("cache.maxEntries", 256));
+        String dir = Settings.get("cache.dir", null);
+        return dir == null ? memory : new TieredResponseCache(memory, new DiskResponseCache(Path.of(dir)));
+    }
+    
+    /**
+     * Runs the client, reading the URLs and passing every response through a
+     * {@link GameTransform}, which derives the hours since last played and drops
+     * non-played games while the games are extracted. All games of a run are measured
+     * from the time the run started. The game list is rebuilt on every run, so a
+     * long-running process can call this repeatedly.
      */
     public void run() {
-        readURLS();
-        formatTimes();
-        filterNonPlayed();
+        gameList.clear();
+        failedUrls.clear();
+        changed = false;
+        referenceEpoch = System.currentTimeMillis() / 1000;
+        readURLS(new GameTransform(referenceEpoch));
     }
 
     /**
      * Reads URLs from a resource file named "urls.txt" and processes each entry.
      * Extracts the URL, JSON path, and keywords, then fetches and processes data.
+     * Games are appended to the game list in the order the lines appear in the file;
+     * duplicate lines are only fetched once. The file is only read on the first run.
+     *
+     * @param transform the stage the games of every response pass through
      */
-    private void readURLS() {
-        InputStream inputstream = Client.class.getClassLoader().getResourceAsStream("urls.txt");
+    private void readURLS(GameTransform transform) {
+        List<UrlEntry> entries = entries();
+        if (concurrency == 1) {
+            fetchSequential(entries, transform);
+        } else {
+            fetchConcurrent(entries, transform);
+        }
+    }
+
+    /**
+     * Gets the parsed lines of "urls.txt", reading the file on first use.
+     *
+     * @return the entries in file order
+     */
+    List<UrlEntry> entries() {
+        if (entries == null) {
+            entries = readEntries();
+        }
+        return entries;
+    }
+
+    /**
+     * Parses every distinct line of "urls.txt", or of the file named by the
+     * {@code urls.file} setting, into a {@code UrlEntry}.
+     *
+     * @return the entries in file order
+     */
+    private List<UrlEntry> readEntries() {
+        InputStream inputstream = Settings.openFileOrResource("urls.file", "urls.txt");
         if (inputstream == null) {
-            throw new IllegalStateException("Error loading in urls.txt from resources");
+            throw new IllegalStateException("urls.txt not found: set urls.file or add it to the resources");
         }
         
+        Map<String, UrlEntry> entries = new LinkedHashMap<String, UrlEntry>();
         try (Scanner scanner = new Scanner(inputstream)) {
             while (scanner.hasNextLine()) {
                 String line = scanner.nextLine();
@@ -71,110 +197,349 @@ public class Client {
                 String url = splitURLAndKeywords[0];
                 String[] pathToRoot = splitURLAndKeywords[1].split("-");
                 String[] keywords = splitURLAndKeywords[2].split(",");
-                
+                entries.putIfAbsent(line, new UrlEntry(url, pathToRoot, keywords));
+            }
+        }
+        return new ArrayList<UrlEntry>(entries.values());
+    }
+
+    /**
+     * Fetches the entries one at a time, aborting on the first failure.
+     *
+     * @param entries   the entries to fetch
+     * @param transform the stage the games of every response pass through
+     */
+    private void fetchSequential(List<UrlEntry> entries, GameTransform transform) {
+        for (UrlEntry entry : entries) {
+            try {
+                gameList.addAll(getData(entry.url(), entry.pathToRoot(), entry.keywords(), false, transform));
+            } catch (IOException ioe) {
+                Metrics.count("fetch_errors", 1);
+                logger.log(Level.FINE, "I/O failure fetching JSON", ioe);
+                throw new RuntimeException("I/O failure fetching JSON");
+            } catch (InterruptedException ie) {
+                Thread.currentThread().interrupt();
+                logger.log(Level.FINE, "Interrupted while fetching JSON", ie);
+                throw new RuntimeException("Interrupted while fetching JSON");
+            }
+        }
+    }
+
+    /**
+     * Fetches the entries on virtual threads with at most {@code concurrency} requests
+     * in flight. Results are merged in file order once all requests have completed,
+     * so the game list is the same regardless of which response arrives first.
+     * A failing URL is logged and recorded in {@link #getFailedUrls()} instead of
+     * aborting the run.
+     *
+     * @param entries   the entries to fetch
+     * @param transform the stage the games of every response pass through
+     */
+    private void fetchConcurrent(List<UrlEntry> entries, GameTransform transform) {
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<List<Game>>> futures = new ArrayList<Future<List<Game>>>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (UrlEntry entry : entries) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return getData(entry.url(), entry.pathToRoot(), entry.keywords(), false, transform);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            
+            for (int i = 0; i < entries.size(); i++) {
+                String url = redact(entries.get(i).url());
                 try {
-                    getData(url, pathToRoot,keywords);
-                } catch (IOException ioe) {
-                    logger.log(Level.FINE, "I/O failure fetching JSON", ioe);
-                    throw new RuntimeException("I/O failure fetching JSON");
+                    gameList.addAll(futures.get(i).get());
+                } catch (ExecutionException ee) {
+                    Metrics.count("fetch_errors", 1);
+                    failedUrls.add(url);
+                    logger.warning("Failed to fetch " + url + ": " + ee.getCause().getMessage());
+                    logger.log(Level.FINE, "Failure fetching JSON", ee.getCause());
                 } catch (InterruptedException ie) {
                     Thread.currentThread().interrupt();
+                    executor.shutdownNow();
                     logger.log(Level.FINE, "Interrupted while fetching JSON", ie);
                     throw new RuntimeException("Interrupted while fetching JSON");
                 }
-               
-                
             }
         }
+        if (!failedUrls.isEmpty()) {
+            logger.warning(failedUrls.size() + " of " + entries.size() + " URLs failed to fetch");
+        }
     }
 
     /**
-     * Saves JSON data associated with a given URL.
-     * 
-     * @param url  the URL from which the data was retrieved
-     * @param json the JSON data to save
+     * Masks the Steam API key in a URL so it can be logged safely.
+     *
+     * @param url the URL to redact
+     * @return the URL with the value of the {@code key} parameter replaced
      */
-    private void saveData(String url, String json) {
-        savedData.put(url, json);
+    static String redact(String url) {
+        return url.replaceAll("([?&]key=)[^&]*", "$1***");
     }
-    
-    
+
+    /**
+     * Fetches and parses the games of one urls.txt entry, without transforming them.
+     * The request is sent once and never hedged: retrying is left to the caller, which
+     * knows how much of its rate budget a request may spend. The response cache is
+     * neither read nor written, since a crawl requests each account once and caching
+     * its responses would only fill memory and disk.
+     *
+     * @param entry the entry to fetch
+     * @return the games extracted from the response
+     * @throws IOException          if an I/O error occurs while fetching data; an
+     *                              unexpected status code is reported as an
+     *                              {@link HttpStatusException}
+     * @throws InterruptedException if the request is interrupted
+     */
+    List<Game> fetch(UrlEntry entry) throws IOException, InterruptedException {
+        return getData(entry.url(), entry.pathToRoot(), entry.keywords(), true, null);
+    }
+
+    /**
+     * Reads the account a URL requests from its {@code steamid} query parameter.
+     *
+     * @param url the request URL
+     * @return the Steam ID, or 0 if the URL has no numeric {@code steamid} parameter
+     */
+    static long steamIdOf(String url) {
+        Matcher matcher = STEAM_ID.matcher(url);
+        return matcher.find() ? Long.parseLong(matcher.group(1)) : 0;
+    }
+
+    private static HttpStatusException statusError(HttpResponse<?> response) {
+        return new HttpStatusException(response.statusCode(),
+            HttpStatusException.parseRetryAfter(response.headers().firstValue("Retry-After").orElse(null)));
+    }
+
+    /**
+     * Starts a GET request, asking for a compressed response unless compression is off.
+     *
+     * @param url the URL to fetch
+     * @return the request builder
+     */
+    private HttpRequest.Builder newRequest(String url) {
+        HttpRequest.Builder builder = client.newRequest(url);
+        if (compression) {
+            builder.header("Accept-Encoding", ContentEncoding.ACCEPT);
+        }
+        return builder;
+    }
+
+    /**
+     * Opens the body of a response as the server meant it, undoing its content
+     * encoding while it is read. The response is closed if the encoding is not supported.
+     *
+     * @param response the response
+     * @param received the body as received, counting the bytes on the wire
+     * @return the decoded body, counting the bytes of JSON
+     * @throws IOException if the content encoding is not supported
+     */
+    private static CountingInputStream decodedBody(HttpResponse<InputStream> response, CountingInputStream received) throws IOException {
+        try {
+            return new CountingInputStream(ContentEncoding.decode(received,
+                response.headers().firstValue("Content-Encoding").orElse(null)));
+        } catch (IOException e) {
+            received.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Logs and counts the size of a response before and after decoding.
+     *
+     * @param received the body as received
+     * @param json     the decoded body
+     */
+    private static void recordSize(CountingInputStream received, CountingInputStream json) {
+        logger.info(() -> "Size of JSON in bytes: " + json.getCount() + " (" + received.getCount() + " received)");
+        Metrics.count("fetch_bytes", json.getCount());
+        Metrics.count("fetch_received_bytes", received.getCount());
+    }
+
+    private <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, boolean metered)
+            throws IOException, InterruptedException {
+        return metered ? client.send(request, handler, 1, false) : client.send(request, handler);
+    }
+
     /**
      * Fetches JSON data from a URL, processes it, and extracts relevant game information.
-     * If data has already been retrieved from the URL, it is loaded from memory instead.
+     * A cached response younger than the cache TTL is used without contacting the server.
+     * An older one is revalidated with {@code If-None-Match}/{@code If-Modified-Since},
+     * and a 304 answer reuses the cached body. A gzip or deflate response is decoded
+     * while it downloads, and the decoded body is cached. Metered requests bypass the
+     * cache. In streaming mode the response is handed to {@link #getDataStreaming} and is
+     * not cached.
      * 
      * @param url        the URL to fetch JSON data from
      * @param pathToRoot the path to navigate inside the JSON structure
      * @param jsonKeys   the keys to extract from the JSON data
+     * @param metered    whether the caller rate limits and retries its own requests, in
+     *                   which case the request is sent once, never hedged and not cached
+     * @param transform  the stage the extracted games pass through, or {@code null}
+     *                   to return every game untransformed
+     * @return the games extracted from the response
      * @throws IOException          if an I/O error occurs while fetching data
      * @throws InterruptedException if the request is interrupted
      */
-    private void getData(String url, String[] pathToRoot, String[] jsonKeys) throws IOException, InterruptedException {
+    private List<Game> getData(String url, String[] pathToRoot, String[] jsonKeys, boolean metered,
+            GameTransform transform) throws IOException, InterruptedException {
+        if (streaming) {
+            return ownedBy(getDataStreaming(url, pathToRoot, jsonKeys, metered, transform), url);
+        }
+        long now = System.currentTimeMillis();
+        CachedResponse cached = metered ? null : responseCache.get(url);
         String json;
-        if(!savedData.containsKey(url)) {
-            //GET request        
-            HttpRequest request = HttpRequest.newBuilder()
-            .uri(URI.create(url))
-            .GET()
-            .build();
+        if (cached != null && cached.isFresh(cacheTtlMillis, now)) {
+            json = cached.body();
+            Metrics.count("fetch_cache_hits", 1);
+        } else {
+            //GET request, conditional when the cached entry has validators
+            HttpRequest.Builder builder = newRequest(url);
+            if (cached != null && cached.etag() != null) {
+                builder.header("If-None-Match", cached.etag());
+            }
+            if (cached != null && cached.lastModified() != null) {
+                builder.header("If-Modified-Since", cached.lastModified());
+            }
     
             // HTTP response
-            HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+            long fetchStart = System.nanoTime();
+            HttpResponse<InputStream> response = send(builder.build(), HttpResponse.BodyHandlers.ofInputStream(), metered);
             int code = response.statusCode();
-            if(code != 200) {
-                throw new IOException("Failed to fetch JSON during HTTP request with status code: " + code);
+            if (code == 304 && cached != null) {
+                response.body().close();
+                Metrics.timer("fetch").recordSince(fetchStart);
+                json = cached.body();
+                Metrics.count("fetch_not_modified", 1);
+                responseCache.put(url, cached.revalidated(now));
+                logger.info("JSON not modified, using cached response");
+            } else if(code != 200) {
+                response.body().close();
+                throw statusError(response);
+            } else {
+                //Json String format, decompressed while it downloads
+                CountingInputStream received = new CountingInputStream(response.body());
+                CountingInputStream body = decodedBody(response, received);
+                try (body) {
+                    json = new String(body.readAllBytes(), StandardCharsets.UTF_8);
+                }
+                Metrics.timer("fetch").recordSince(fetchStart);
+                //size check to see if tree traversal is efficient in terms of memory usage
+                recordSize(received, body);
+                changed = true;
+                if (!metered) {
+                    responseCache.put(url, new CachedResponse(json,
+                        response.headers().firstValue("ETag").orElse(null),
+                        response.headers().firstValue("Last-Modified").orElse(null),
+                        now));
+                }
             }
-    
-            //Json String format
-            json = response.body();
-            //size check to see if tree traversal is efficient in terms of memory usage
-            int jsonSizeInBytes = json.getBytes(StandardCharsets.UTF_8).length;
-            logger.info("Size of JSON in bytes: " + jsonSizeInBytes);
-            
-    
-        }else {
-            json = savedData.get(url);
         }
         
-        saveData(url,json);
-        
-        JsonNode rootNode = objectMapper.readTree(json);
-        traversal(rootNode,pathToRoot, jsonKeys);
+        long parseStart = System.nanoTime();
+        JsonNode array = arrayAt(objectMapper.readTree(json), pathToRoot);
+        List<Game> games = transform == null
+            ? GameTransform.extractAll(array, jsonKeys)
+            : transform.extract(array, jsonKeys);
+        Metrics.timer("parse").recordSince(parseStart);
+        int parsed = array.isArray() ? array.size() : 0;
+        Metrics.count("parse_games", parsed);
+        Metrics.count("filter_removed", parsed - games.size());
+        return ownedBy(games, url);
     }
 
-    
-     /**
-     * Traverses a JSON tree to extract relevant information based on specified keys.
+    /**
+     * Records the account requested by the URL as the owner of the games.
+     *
+     * @param games the games extracted from the response
+     * @param url   the request URL
+     * @return the same games
+     */
+    private static List<Game> ownedBy(List<Game> games, String url) {
+        long steamId = steamIdOf(url);
+        for (Game game : games) {
+            game.setSteamId(steamId);
+        }
+        return games;
+    }
+
+
+    /**
+     * Fetches JSON data from a URL and extracts games while the body is still being
+     * received, without buffering the response or building a tree. A compressed
+     * response is decoded on the way into the parser, and each game passes through the
+     * transform as soon as it has been read.
      * 
-     * @param root       the root JSON node
+     * @param url        the URL to fetch JSON data from
      * @param pathToRoot the path to navigate inside the JSON structure
      * @param jsonKeys   the keys to extract from the JSON data
+     * @param metered    whether the caller rate limits and retries its own requests
+     * @param transform  the stage the extracted games pass through, or {@code null}
+     * @return the games extracted from the response
+     * @throws IOException          if an I/O error occurs while fetching or parsing data
+     * @throws InterruptedException if the request is interrupted
      */
-    private void traversal(JsonNode root, String[]pathToRoot ,  String[] jsonKeys) {
-        JsonNode startNode = root;
-        List<String> temp = new ArrayList<String>();
-        for(String path : pathToRoot){
-            startNode = startNode.path(path);
-        }
-        
-        if(startNode.isArray()){
-            
-            for (JsonNode node : startNode) {
-            
-            
-                for (String key : jsonKeys){
-                    
-                    temp.add(node.path(key).asText());
-                }
-            }
+    private List<Game> getDataStreaming(String url, String[] pathToRoot, String[] jsonKeys, boolean metered,
+            GameTransform transform) throws IOException, InterruptedException {
+        HttpRequest request = newRequest(url).build();
+
+        long fetchStart = System.nanoTime();
+        HttpResponse<InputStream> response = send(request, HttpResponse.BodyHandlers.ofInputStream(), metered);
+        Metrics.timer("fetch").recordSince(fetchStart);
+        int code = response.statusCode();
+        if(code != 200) {
+            response.body().close();
+            throw statusError(response);
         }
-        
-        if (gameList.isEmpty()) {
-            for (int i = 0; i < temp.size(); i += 3) {
-                Game game = new Game(temp.get(i), temp.get(i+1), temp.get(i+2));
-                gameList.add(game);
+
+        changed = true;
+        List<Game> games = new ArrayList<Game>();
+        CountingInputStream received = new CountingInputStream(response.body());
+        CountingInputStream body = decodedBody(response, received);
+        long parseStart = System.nanoTime();
+        int parsed = streamingParser.parse(body, pathToRoot, jsonKeys, transform == null ? games::add : game -> {
+            if (transform.test(game)) {
+                games.add(game);
             }
+        });
+        Metrics.timer("parse").recordSince(parseStart);
+        recordSize(received, body);
+        Metrics.count("parse_games", parsed);
+        Metrics.count("filter_removed", parsed - games.size());
+        return games;
+    }
+    
+    /**
+     * Traverses a JSON tree to extract relevant information based on specified keys.
+     * 
+     * @param root       the root JSON node
+     * @param pathToRoot the path to navigate inside the JSON structure
+     * @param jsonKeys   the keys to extract from the JSON data; a fourth key, if
+     *                   present, holds the app id
+     * @return the games found under the path, untransformed
+     */
+    List<Game> traversal(JsonNode root, String[] pathToRoot, String[] jsonKeys) {
+        return GameTransform.extractAll(arrayAt(root, pathToRoot), jsonKeys);
+    }
+
+    /**
+     * Follows the path from the root of a JSON tree to the game array.
+     *
+     * @param root       the root JSON node
+     * @param pathToRoot the field names leading to the array
+     * @return the node at the end of the path, which is missing if the path is not there
+     */
+    private static JsonNode arrayAt(JsonNode root, String[] pathToRoot) {
+        JsonNode node = root;
+        for (String path : pathToRoot) {
+            node = node.path(path);
         }
+        return node;
     }
     
     /**
@@ -182,29 +547,60 @@ public class Client {
      */
     public void printList() {
         for (Game game : gameList) {
-            logger.info(game.getName() + ", " + game.getMP() + ", " + game.getLPE());
+            logger.info(() -> game.getName() + ", " + game.getMP() + ", " + game.getLPE());
         }
     }
     
     /**
-     * Formats game playtime information. If a game has never been played, it is marked accordingly.
+     * Saves the processed game list as a binary {@link GameSnapshot}.
+     *
+     * @param file the snapshot file
      */
-    private void formatTimes() {
-        for (Game game : gameList) {
-            if(game.getMP().equals("0")) {
-                game.setLPE("Never played");
-            }
-            else {
-                game.EpochToHours();
-            }
+    public void writeSnapshot(Path file) {
+        long start = System.nanoTime();
+        try {
+            new GameSnapshot(referenceEpoch, GameTable.of(gameList)).write(file);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error writing snapshot " + file, e);
+            throw new RuntimeException("Error writing snapshot " + file);
+        }
+        Metrics.timer("snapshot_write").recordSince(start);
+        logger.info("Wrote " + gameList.size() + " games to snapshot " + file);
+    }
+
+    /**
+     * Replaces the game list with the games of a snapshot written by an earlier run,
+     * instead of fetching them. The hours since last played are those of that run.
+     *
+     * @param file the snapshot file
+     */
+    public void loadSnapshot(Path file) {
+        long start = System.nanoTime();
+        GameSnapshot snapshot;
+        try {
+            snapshot = GameSnapshot.read(file);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error reading snapshot " + file, e);
+            throw new RuntimeException("Error reading snapshot " + file);
         }
+        gameList.clear();
+        failedUrls.clear();
+        gameList.addAll(snapshot.toGames());
+        referenceEpoch = snapshot.referenceEpoch();
+        changed = true;
+        Metrics.timer("snapshot_read").recordSince(start);
+        logger.info("Loaded " + gameList.size() + " games from snapshot " + file);
     }
 
     /**
-     * Filters out games that have never been played from the game list.
+     * Checks whether the last run received any new response body. It is {@code false}
+     * when every URL was answered from the cache or with {@code 304 Not Modified}, in
+     * which case the game list holds the same data as the run before.
+     *
+     * @return {@code true} if at least one response was downloaded
      */
-    private void filterNonPlayed() {
-        gameList.removeIf(game -> game.getLPE().equals("Never played"));
+    public boolean hasChanges() {
+        return changed;
     }
 
     /**
@@ -215,6 +611,15 @@ public class Client {
     public List<Game> getGameList() {
         return gameList;
     }
+
+    /**
+     * Retrieves the URLs (with the API key masked) that failed during a concurrent fetch.
+     * 
+     * @return the failed URLs in urls.txt order
+     */
+    public List<String> getFailedUrls() {
+        return failedUrls;
+    }
 }
     
 
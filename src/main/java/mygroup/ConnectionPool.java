@@ -0,0 +1,140 @@
+package mygroup;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A small, fixed-size pool of JDBC connections. All connections are opened up front,
+ * so the credentials do not need to be kept. A connection that is no longer valid
+ * when borrowed is replaced with a fresh one, using the credentials given to
+ * {@link #reconnectWith}, if any.
+ */
+public class ConnectionPool implements AutoCloseable {
+    private final String url;
+    private final BlockingQueue<Connection> idle;
+    private final List<Connection> all;
+    private String username;
+    private char[] password;
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * Opens {@code size} connections to the database.
+     *
+     * @param url      The JDBC URL.
+     * @param username The database user.
+     * @param password The password. The caller may wipe the array afterwards.
+     * @param size     The number of connections.
+     * @throws SQLException If a connection cannot be opened. Connections opened so far are closed.
+     */
+    public ConnectionPool(String url, String username, char[] password, int size) throws SQLException {
+        if (size < 1) {
+            throw new IllegalArgumentException("Pool size must be at least 1");
+        }
+        this.url = url;
+        this.idle = new ArrayBlockingQueue<Connection>(size);
+        this.all = new ArrayList<Connection>(size);
+        try {
+            for (int i = 0; i < size; i++) {
+                Connection conn = DriverManager.getConnection(url, username, new String(password));
+                all.add(conn);
+                idle.add(conn);
+            }
+        } catch (SQLException e) {
+            closeAll(all);
+            throw e;
+        }
+    }
+
+    /**
+     * Keeps credentials so that broken connections can be reopened. Only long-running
+     * processes need this; a one-shot run lets the pool forget the password.
+     *
+     * @param username The database user.
+     * @param password The password. A copy is kept.
+     */
+    public synchronized void reconnectWith(String username, char[] password) {
+        this.username = username;
+        this.password = password.clone();
+    }
+
+    /**
+     * Gets the number of connections in the pool.
+     *
+     * @return The pool size.
+     */
+    public int size() {
+        return all.size();
+    }
+
+    /**
+     * Takes a connection, waiting until one is free.
+     *
+     * @return A connection that must be given back with {@link #release}.
+     * @throws SQLException If a broken connection cannot be replaced.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public Connection borrow() throws SQLException, InterruptedException {
+        Connection conn = idle.take();
+        try {
+            if (!conn.isValid(2)) {
+                conn = replace(conn);
+            }
+        } catch (SQLException e) {
+            idle.add(conn);
+            throw e;
+        }
+        return conn;
+    }
+
+    /**
+     * Gives a borrowed connection back to the pool.
+     *
+     * @param conn The connection.
+     */
+    public void release(Connection conn) {
+        idle.add(conn);
+    }
+
+    private synchronized Connection replace(Connection broken) throws SQLException {
+        if (password == null) {
+            throw new SQLException("Pooled connection is no longer valid");
+        }
+        logger.info("Reopening a broken database connection");
+        Connection fresh = DriverManager.getConnection(url, username, new String(password));
+        all.set(all.indexOf(broken), fresh);
+        try {
+            broken.close();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Error closing broken connection", e);
+        }
+        return fresh;
+    }
+
+    /**
+     * Closes every connection of the pool.
+     */
+    @Override
+    public synchronized void close() {
+        closeAll(all);
+        if (password != null) {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    private static void closeAll(List<Connection> connections) {
+        for (Connection conn : connections) {
+            try {
+                conn.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Error closing connection", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package mygroup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Negotiates and undoes HTTP content encodings. Requests advertise {@link #ACCEPT} and
+ * response bodies are decoded while they are read, so a compressed body is never held
+ * in memory in either form.
+ */
+public final class ContentEncoding {
+    /** The value of the {@code Accept-Encoding} header sent with requests. */
+    public static final String ACCEPT = "gzip, deflate";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Wraps a response body in the decoders named by its {@code Content-Encoding}
+     * header. Several codings are undone in the reverse of the order they are listed.
+     * A {@code deflate} body may be zlib-wrapped, as the standard says, or raw, as some
+     * servers send it.
+     *
+     * @param body           The body as received.
+     * @param contentEncoding The {@code Content-Encoding} header, or {@code null}.
+     * @return The decoded body.
+     * @throws IOException If a coding is not supported or a gzip header is invalid.
+     */
+    public static InputStream decode(InputStream body, String contentEncoding) throws IOException {
+        if (contentEncoding == null || contentEncoding.isBlank()) {
+            return body;
+        }
+        String[] codings = contentEncoding.split(",");
+        InputStream in = body;
+        for (int i = codings.length - 1; i >= 0; i--) {
+            String coding = codings[i].trim().toLowerCase(Locale.ROOT);
+            switch (coding) {
+                case "gzip":
+                case "x-gzip":
+                    in = new GZIPInputStream(in, BUFFER_SIZE);
+                    break;
+                case "deflate":
+                    in = inflate(in);
+                    break;
+                case "identity":
+                case "":
+                    break;
+                default:
+                    throw new IOException("Unsupported Content-Encoding: " + coding);
+            }
+        }
+        return in;
+    }
+
+    private static InputStream inflate(InputStream in) throws IOException {
+        PushbackInputStream peek = new PushbackInputStream(in, 2);
+        byte[] header = peek.readNBytes(2);
+        peek.unread(header);
+        boolean zlib = header.length == 2 && (header[0] & 0x0F) == 8
+            && (((header[0] & 0xFF) << 8) | (header[1] & 0xFF)) % 31 == 0;
+        Inflater inflater = new Inflater(!zlib);
+        return new InflaterInputStream(peek, inflater, BUFFER_SIZE) {
+            @Override
+            public void close() throws IOException {
+                // the stream only ends its own inflater, so release this one here
+                super.close();
+                inflater.end();
+            }
+        };
+    }
+}
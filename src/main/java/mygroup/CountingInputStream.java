@@ -0,0 +1,59 @@
+package mygroup;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * An {@link InputStream} wrapper that counts the bytes read through it.
+ */
+public class CountingInputStream extends FilterInputStream {
+    private long count;
+
+    /**
+     * Wraps the given stream.
+     *
+     * @param in The stream to count.
+     */
+    public CountingInputStream(InputStream in) {
+        super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            count++;
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            count += n;
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        count += skipped;
+        return skipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Gets the number of bytes read so far.
+     *
+     * @return The byte count.
+     */
+    public long getCount() {
+        return count;
+    }
+}
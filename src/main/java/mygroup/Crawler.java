@@ -0,0 +1,295 @@
+package mygroup;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Fetches the libraries of many Steam accounts through a {@code Client}. A reader
+ * thread feeds the Steam IDs into a bounded work queue, worker threads take them,
+ * wait for the shared {@link RateLimiter}, fetch and parse each library and put the
+ * played games into a bounded buffer. The calling thread drains the buffer in batches
+ * and hands each batch downstream. Every stage blocks when the next one falls behind,
+ * so memory use depends on the queue and buffer sizes, not on the number of accounts.
+ *
+ * <p>Requests answered with 429 or a 5xx status, and requests that fail on the
+ * network, are retried according to the {@link RetryPolicy}. After a 429 the delay is
+ * applied through the rate limiter instead, which slows down all workers and paces the
+ * retry along with them. An account that still fails is logged and
+ * skipped, as is an account whose response cannot be processed. While the circuit breaker of the host is open, workers wait for it to
+ * close; a request the breaker rejected does not count as an attempt.
+ */
+public class Crawler {
+    private static final Client.UrlEntry STOP = new Client.UrlEntry(null, null, null);
+    private static final Game END = new Game("", 0, 0);
+    private final Client client;
+    private final RateLimiter rateLimiter;
+    private final RetryPolicy retryPolicy;
+    private final int workers;
+    private final int queueSize;
+    private final int bufferSize;
+    private final int batchSize;
+    private final AtomicInteger failed = new AtomicInteger();
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * Constructs a crawler configured by the {@code crawl.*} settings: at most
+     * {@code crawl.ratePerSecond} requests per second (default 1) with bursts of
+     * {@code crawl.burst} (default 5), {@code crawl.workers} workers (default 8), a work
+     * queue of {@code crawl.queueSize} IDs (default 1000), a buffer of
+     * {@code crawl.bufferSize} games (default 10000) and downstream batches of
+     * {@code crawl.batchSize} games (default 500). Failed requests are tried up to
+     * {@code crawl.maxAttempts} times (default 5) with delays bounded by
+     * {@code crawl.retryBaseMillis} (default 1000) doubling up to
+     * {@code crawl.retryMaxMillis} (default 60000).
+     *
+     * @param client The client used to fetch and parse the libraries.
+     */
+    public Crawler(Client client) {
+        this(client,
+            new RateLimiter(Settings.getDouble("crawl.ratePerSecond", 1), Settings.getInt("crawl.burst", 5)),
+            new RetryPolicy(Settings.getInt("crawl.maxAttempts", 5),
+                Settings.getLong("crawl.retryBaseMillis", 1000), Settings.getLong("crawl.retryMaxMillis", 60_000)),
+            Settings.getInt("crawl.workers", 8),
+            Settings.getInt("crawl.queueSize", 1000),
+            Settings.getInt("crawl.bufferSize", 10_000),
+            Settings.getInt("crawl.batchSize", 500));
+    }
+
+    /**
+     * Constructs a crawler.
+     *
+     * @param client      The client used to fetch and parse the libraries.
+     * @param rateLimiter The limiter every request waits for.
+     * @param retryPolicy The policy for failed requests.
+     * @param workers     The number of concurrent requests.
+     * @param queueSize   The number of Steam IDs read ahead of the workers.
+     * @param bufferSize  The number of parsed games held ahead of the downstream stages.
+     * @param batchSize   The number of games handed downstream at once.
+     */
+    public Crawler(Client client, RateLimiter rateLimiter, RetryPolicy retryPolicy,
+            int workers, int queueSize, int bufferSize, int batchSize) {
+        if (workers < 1 || queueSize < 1 || bufferSize < 1 || batchSize < 1) {
+            throw new IllegalArgumentException("Crawler workers, queue, buffer and batch sizes must be at least 1");
+        }
+        this.client = client;
+        this.rateLimiter = rateLimiter;
+        this.retryPolicy = retryPolicy;
+        this.workers = workers;
+        this.queueSize = queueSize;
+        this.bufferSize = bufferSize;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Crawls every Steam ID in a file. The first line of urls.txt serves as the request
+     * template; its {@code steamid} parameter is replaced with each ID. Blank lines and
+     * lines starting with {@code #} are ignored. Games that were never played, by their
+     * minutes or their last played time, are dropped and the others are formatted as
+     * {@link Client#run()} formats them.
+     *
+     * @param idsFile    The file with one Steam ID per line.
+     * @param downstream Receives the games in batches, on the calling thread. A batch is
+     *                   not used by the crawler after it has been handed over.
+     * @return The number of accounts that could not be fetched.
+     */
+    public int run(Path idsFile, Consumer<List<Game>> downstream) {
+        Client.UrlEntry template = client.entries().get(0);
+        BlockingQueue<Client.UrlEntry> queue = new ArrayBlockingQueue<Client.UrlEntry>(queueSize);
+        BlockingQueue<Game> buffer = new ArrayBlockingQueue<Game>(bufferSize);
+        AtomicInteger running = new AtomicInteger(workers);
+        failed.set(0);
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            Future<Integer> reader = executor.submit(() -> readIds(idsFile, template, queue, running));
+            List<Future<Void>> workerFutures = new ArrayList<Future<Void>>(workers);
+            for (int i = 0; i < workers; i++) {
+                workerFutures.add(executor.submit(() -> work(queue, buffer, running)));
+            }
+            try {
+                drain(buffer, downstream);
+                for (Future<Void> worker : workerFutures) {
+                    worker.get();
+                }
+                int accounts = reader.get();
+                logger.info(String.format("Crawled %d accounts in %.1f s, %d failed",
+                    accounts, (System.nanoTime() - start) / 1e9, failed.get()));
+            } catch (ExecutionException e) {
+                executor.shutdownNow();
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                logger.log(Level.FINE, "Error crawling " + idsFile, e.getCause());
+                throw new RuntimeException("Error crawling " + idsFile);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                executor.shutdownNow();
+                logger.log(Level.FINE, "Interrupted while crawling", e);
+                throw new RuntimeException("Interrupted while crawling");
+            } catch (RuntimeException e) {
+                executor.shutdownNow();
+                throw e;
+            }
+        }
+        return failed.get();
+    }
+
+    /**
+     * Reads the Steam IDs into the work queue, then tells every worker to stop. Reading
+     * ends early if no worker is left to take the IDs.
+     *
+     * @return The number of IDs read.
+     */
+    private int readIds(Path idsFile, Client.UrlEntry template, BlockingQueue<Client.UrlEntry> queue,
+            AtomicInteger running) throws IOException, InterruptedException {
+        int count = 0;
+        try (BufferedReader reader = Files.newBufferedReader(idsFile, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String id = line.strip();
+                if (id.isEmpty() || id.startsWith("#")) {
+                    continue;
+                }
+                if (!offer(queue, template.withSteamId(id), running)) {
+                    logger.warning("No crawler workers left, stopped reading " + idsFile + " after " + count + " IDs");
+                    return count;
+                }
+                count++;
+            }
+        } finally {
+            for (int i = 0; i < workers; i++) {
+                if (!offer(queue, STOP, running)) {
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Puts an entry into the work queue, waiting while it is full as long as a worker
+     * is still running to take it.
+     *
+     * @return {@code false} if every worker has stopped.
+     */
+    private static boolean offer(BlockingQueue<Client.UrlEntry> queue, Client.UrlEntry entry, AtomicInteger running)
+            throws InterruptedException {
+        while (!queue.offer(entry, 100, TimeUnit.MILLISECONDS)) {
+            if (running.get() == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Fetches accounts from the work queue until told to stop. The last worker to stop
+     * marks the end of the buffer.
+     */
+    private Void work(BlockingQueue<Client.UrlEntry> queue, BlockingQueue<Game> buffer, AtomicInteger running)
+            throws InterruptedException {
+        try {
+            Client.UrlEntry entry;
+            while ((entry = queue.take()) != STOP) {
+                long start = System.nanoTime();
+                List<Game> games = fetchWithRetry(entry);
+                Metrics.timer("crawl_account").recordSince(start);
+                if (games == null) {
+                    continue;
+                }
+                for (Game game : new GameTransform(System.currentTimeMillis() / 1000).apply(games)) {
+                    buffer.put(game);
+                }
+            }
+        } finally {
+            if (running.decrementAndGet() == 0) {
+                buffer.put(END);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Fetches one account, retrying failures the policy allows.
+     *
+     * @return The parsed games, or {@code null} if the account could not be fetched.
+     */
+    private List<Game> fetchWithRetry(Client.UrlEntry entry) throws InterruptedException {
+        boolean permitted = false;
+        for (int attempt = 1; ; attempt++) {
+            if (!permitted) {
+                rateLimiter.acquire();
+            }
+            permitted = false;
+            try {
+                return client.fetch(entry);
+            } catch (CircuitOpenException e) {
+                // nothing was sent, so keep the attempt and the rate limiter permit
+                attempt--;
+                permitted = true;
+                Metrics.count("crawl_circuit_waits", 1);
+                logger.fine(() -> "Waiting " + e.getRetryAfterMillis() + " ms: " + e.getMessage());
+                TimeUnit.MILLISECONDS.sleep(Math.max(1, e.getRetryAfterMillis()));
+            } catch (IOException e) {
+                int status = e instanceof HttpStatusException se ? se.getStatusCode() : -1;
+                if ((status != -1 && !RetryPolicy.isRetryable(status)) || attempt >= retryPolicy.maxAttempts()) {
+                    giveUp(entry, attempt, e);
+                    return null;
+                }
+                long retryAfter = e instanceof HttpStatusException se ? se.getRetryAfterMillis() : -1;
+                long delay = retryPolicy.delayMillis(attempt, retryAfter);
+                Metrics.count("crawl_retries", 1);
+                logger.fine(() -> "Retrying in " + delay + " ms: " + e.getMessage());
+                if (status == 429) {
+                    // the next permit is held back for the delay, which paces this retry too
+                    rateLimiter.backOff(delay);
+                } else {
+                    TimeUnit.MILLISECONDS.sleep(delay);
+                }
+            } catch (RuntimeException e) {
+                // malformed playtime values and the like, retrying will not help
+                giveUp(entry, attempt, e);
+                return null;
+            }
+        }
+    }
+
+    private void giveUp(Client.UrlEntry entry, int attempt, Exception e) {
+        failed.incrementAndGet();
+        Metrics.count("crawl_failed", 1);
+        logger.warning("Giving up on " + Client.redact(entry.url()) + " after " + attempt + " attempts: " + e.getMessage());
+        logger.log(Level.FINE, "Failure fetching JSON", e);
+    }
+
+    /**
+     * Hands the buffered games downstream in batches until the workers are done.
+     */
+    private void drain(BlockingQueue<Game> buffer, Consumer<List<Game>> downstream) throws InterruptedException {
+        List<Game> batch = new ArrayList<Game>(batchSize);
+        Game game;
+        while ((game = buffer.take()) != END) {
+            batch.add(game);
+            if (batch.size() == batchSize) {
+                downstream.accept(batch);
+                batch = new ArrayList<Game>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            downstream.accept(batch);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package mygroup;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Keeps the pipeline running in one process and refreshes it on a fixed schedule.
+ * The {@code Client} with its HTTP client and response cache, the genre index and
+ * the database connection pool are set up once and reused by every refresh.
+ * A refresh only does the work its input requires: unchanged responses skip the
+ * genre and database stages, and delta sync writes only games that changed.
+ */
+public class Daemon {
+    private final Client client;
+    private final GenreMap genreMap;
+    private final DatabaseManager dbm;
+    private final boolean useDatabase;
+    private final long intervalSeconds;
+    private final ScheduledExecutorService scheduler;
+    private boolean refreshed;
+    private boolean pending;
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * Constructs a daemon around the pipeline components.
+     *
+     * @param client          The client fetching the games.
+     * @param genreMap        The genre mapping for the client's game list.
+     * @param dbm             The database manager writing the games and results.
+     * @param useDatabase     Whether results come from MySQL, or are computed in memory.
+     * @param intervalSeconds The delay between the end of one refresh and the start of the next.
+     */
+    public Daemon(Client client, GenreMap genreMap, DatabaseManager dbm, boolean useDatabase, long intervalSeconds) {
+        if (intervalSeconds < 1) {
+            throw new IllegalArgumentException("Refresh interval must be at least 1 second");
+        }
+        this.client = client;
+        this.genreMap = genreMap;
+        this.dbm = dbm;
+        this.useDatabase = useDatabase;
+        this.intervalSeconds = intervalSeconds;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    /**
+     * Loads the genre index, opens the database connections and schedules the refreshes,
+     * the first of which starts immediately. Credentials must come from the
+     * {@code db.user} and {@code db.password}/{@code db.passwordFile} settings when no
+     * console is attached.
+     */
+    public void start() {
+        Metrics.time("genres", genreMap::loadIndex);
+        if (useDatabase) {
+            dbm.open(true);
+            dbm.enableDeltaSync();
+        }
+        scheduler.scheduleWithFixedDelay(this::refreshSafely, 0, intervalSeconds, TimeUnit.SECONDS);
+        logger.info("Refreshing every " + intervalSeconds + " s");
+    }
+
+    /**
+     * Runs one refresh. A failure is logged and counted instead of being thrown, so
+     * that the schedule keeps running and the next refresh tries again.
+     */
+    private void refreshSafely() {
+        long start = System.nanoTime();
+        try {
+            refresh();
+        } catch (RuntimeException e) {
+            Metrics.count("refresh_errors", 1);
+            logger.log(Level.FINE, "Refresh failed", e);
+            logger.warning("Refresh failed: " + e.getMessage());
+        } finally {
+            Metrics.timer("refresh").recordSince(start);
+        }
+    }
+
+    /**
+     * Fetches the games and, if anything changed since the last completed refresh, maps
+     * their genres and writes them and the results. A refresh in which some URLs failed
+     * is not passed on, so the results never reflect a partial library. Changes fetched
+     * by a refresh that did not complete stay pending, so a later refresh writes them
+     * even if its own responses come from the cache or are not modified.
+     */
+    void refresh() {
+        client.run();
+        if (client.hasChanges()) {
+            pending = true;
+        }
+        if (!client.getFailedUrls().isEmpty()) {
+            logger.warning("Skipping refresh, " + client.getFailedUrls().size() + " URLs failed to fetch");
+            return;
+        }
+        if (refreshed && !pending) {
+            Metrics.count("refresh_unchanged", 1);
+            logger.info("No new data, skipping refresh");
+            return;
+        }
+        Metrics.time("genres", genreMap::resolve);
+        Metrics.count("genres_mapped", genreMap.getMap().size());
+        if (useDatabase) {
+            dbm.refresh();
+        } else {
+            dbm.runOffline();
+        }
+        pending = false;
+        refreshed = true;
+        Metrics.exportIfConfigured();
+    }
+
+    /**
+     * Blocks until the daemon has been stopped.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void awaitTermination() throws InterruptedException {
+        while (!scheduler.awaitTermination(1, TimeUnit.HOURS)) {
+            // keep waiting
+        }
+    }
+
+    /**
+     * Stops scheduling refreshes, lets a running refresh finish and closes the database
+     * connections.
+     */
+    public void stop() {
+        scheduler.shutdown();
+        try {
+            if (!scheduler.awaitTermination(30, TimeUnit.SECONDS)) {
+                scheduler.shutdownNow();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            scheduler.shutdownNow();
+        }
+        dbm.close();
+        logger.info("Daemon stopped");
+    }
+}
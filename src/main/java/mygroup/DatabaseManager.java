@@ -1,25 +1,35 @@
 package mygroup;
-import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
 import java.io.Console;
 import java.io.File;
-import java.io.FileWriter;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.sql.Connection;
-import java.sql.DriverManager;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Types;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.LinkedHashMap;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
-import java.util.Optional;
 import java.util.Scanner;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.logging.Logger;
 import java.util.logging.Level;
-import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 /**
@@ -29,71 +39,479 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 public class DatabaseManager {
     private Client client;
     private GenreMap genreMap;
-    private final List<String> sqlQueries;
-    private Map<String,String> resultMap;
+    private final List<ReportQuery> sqlQueries;
+    private final int batchSize;
+    private final int poolSize;
+    private final boolean multiTenant;
+    private final int writers;
+    private SyncState syncState;
+    private boolean syncLoaded;
+    private ConnectionPool pool;
+    private boolean reported;
+    private ReportServer reportServer;
+    private ReportSnapshot.GameTotals writtenTotals;
+    private final PlaytimeHistory history;
+    private final File resultFile;
+    private final String resultFormat;
     private static final Logger logger = AppLogger.get();
     
+    private static final String INSERT_OR_UPDATE =
+                            "INSERT INTO games (name, minutes_played, last_played_hours, genres) " +
+                            "VALUES (?, ?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE " +
+                            "minutes_played = VALUES(minutes_played), " +
+                            "last_played_hours = VALUES(last_played_hours), " +
+                            "genres = VALUES(genres)";
+
+    private static final String ADJUST_GENRE_TOTALS =
+                            "INSERT INTO genre_totals (genre, minutes_played, games) " +
+                            "VALUES (?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE " +
+                            "minutes_played = minutes_played + VALUES(minutes_played), " +
+                            "games = games + VALUES(games)";
+
+    private static final String INSERT_OR_UPDATE_USER_GAME =
+                            "INSERT INTO user_games (steam_id, app_id, name, minutes_played, last_played_hours, genres) " +
+                            "VALUES (?, ?, ?, ?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE " +
+                            "name = VALUES(name), " +
+                            "minutes_played = VALUES(minutes_played), " +
+                            "last_played_hours = VALUES(last_played_hours), " +
+                            "genres = VALUES(genres)";
+
+    private static final String ADJUST_USER_GENRE_TOTALS =
+                            "INSERT INTO user_genre_totals (steam_id, genre, minutes_played, games) " +
+                            "VALUES (?, ?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE " +
+                            "minutes_played = minutes_played + VALUES(minutes_played), " +
+                            "games = games + VALUES(games)";
+
+    /** Attempts per batch when the database aborts it to resolve a deadlock. */
+    private static final int DEADLOCK_ATTEMPTS = 3;
+
     /**
      * Constructs a DatabaseManager with a Client and GenreMap.
-     * 
+     * The insert batch size is read from the {@code db.batchSize} setting (default 1,
+     * one transaction per game). Setting {@code sync.stateFile} enables
+     * delta sync against the fingerprints stored in that file. Results are written in the
+     * {@code result.format} format ({@code json} or {@code ndjson}) to {@code result.file}.
+     * The reports come from the {@link QueryCatalog} and run in parallel over up to
+     * {@code db.poolSize} connections (default 4). With {@code db.multiTenant} set to
+     * {@code true} the games are stored per account in {@code user_games}, and
+     * {@code db.writers} connections (default {@code db.poolSize}) write different
+     * accounts in parallel. With {@code history.enabled} set to {@code true} every change
+     * in playtime is also recorded in the {@link PlaytimeHistory}, and a weekly genre
+     * trend of {@code history.trendWeeks} weeks (default 8) is added to the built-in reports.
+     *
      * @param client   The client containing the game data.
      * @param genreMap The mapping of game names to genres.
      */
     public DatabaseManager(Client client, GenreMap genreMap) {
+        this(client, genreMap, Settings.getInt("db.batchSize", 1));
+    }
+
+    /**
+     * Constructs a DatabaseManager with a Client, GenreMap and insert batch size.
+     * 
+     * @param client    The client containing the game data.
+     * @param genreMap  The mapping of game names to genres.
+     * @param batchSize The number of rows sent and committed together. A value of 1
+     *                  commits each upsert on its own.
+     */
+    public DatabaseManager(Client client, GenreMap genreMap, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be at least 1");
+        }
+        this.batchSize = batchSize;
+        this.poolSize = Settings.getInt("db.poolSize", 4);
+        this.multiTenant = Settings.getBoolean("db.multiTenant", false);
+        this.writers = multiTenant ? Settings.getInt("db.writers", poolSize) : 1;
+        if (writers < 1) {
+            throw new IllegalArgumentException("Writer count must be at least 1");
+        }
+        String stateFile = Settings.get("sync.stateFile", null);
+        this.syncState = stateFile == null ? null : new SyncState(Path.of(stateFile));
         this.client = client;
         this.genreMap = genreMap;
-        this.resultMap = new LinkedHashMap<String,String>();
-        sqlQueries = new ArrayList<String>();
-        sqlQueries.add("""
-                    SELECT SUM(minutes_played) AS minutes_played,genres 
-                    FROM games
-                    GROUP BY genres
-                    ORDER BY SUM(minutes_played) DESC
+        this.resultFormat = Settings.get("result.format", "json");
+        this.resultFile = new File(Settings.get("result.file", "result." + resultFormat));
+        this.history = Settings.getBoolean("history.enabled", false) ? new PlaytimeHistory() : null;
+        List<ReportQuery> defaults = new ArrayList<ReportQuery>(multiTenant ? defaultUserQueries() : defaultQueries());
+        if (history != null) {
+            defaults.add(PlaytimeHistory.weeklyTrend(Settings.getInt("history.trendWeeks", 8)));
+        }
+        sqlQueries = QueryCatalog.load(defaults);
+    }
+
+    /**
+     * The built-in reports: the 5 genres and the 50 games with the most minutes played.
+     * They are used when no query catalog is configured. The genre report reads the
+     * {@code genre_totals} aggregate kept up to date by {@link #insertData}, and the game
+     * report reads the first entries of the {@code (minutes_played DESC, name)} index
+     * (names are unique, so there is nothing to group), so neither scans the games table.
+     * 
+     * @return The report queries in output order.
+     */
+    static List<ReportQuery> defaultQueries() {
+        ReportColumn minutes = new ReportColumn("minutes_played", ReportColumn.Type.LONG);
+        return List.of(
+            new ReportQuery("top_genres", """
+                    SELECT minutes_played,genre AS genres
+                    FROM genre_totals
+                    WHERE games > 0
+                    ORDER BY minutes_played DESC, genre
                     LIMIT 5;
-                    """);
-        sqlQueries.add("""
-                    SELECT SUM(minutes_played) AS minutes_played,name 
+                    """, List.of(new ReportColumn("genres", ReportColumn.Type.STRING), minutes)),
+            new ReportQuery("top_games", """
+                    SELECT minutes_played,name
                     FROM games
+                    ORDER BY minutes_played DESC, name
+                    LIMIT 50;
+                """, List.of(new ReportColumn("name", ReportColumn.Type.STRING), minutes)));
+    }
+
+    /**
+     * The built-in reports for per-account storage, with the same sections and columns
+     * as {@link #defaultQueries()}. Both sum over all accounts: the genre report reads
+     * the {@code user_genre_totals} aggregate, and the game report adds up each name's
+     * rows using the {@code (name, minutes_played)} index.
+     *
+     * @return The report queries in output order.
+     */
+    static List<ReportQuery> defaultUserQueries() {
+        ReportColumn minutes = new ReportColumn("minutes_played", ReportColumn.Type.LONG);
+        return List.of(
+            new ReportQuery("top_genres", """
+                    SELECT SUM(minutes_played) AS minutes_played,genre AS genres
+                    FROM user_genre_totals
+                    WHERE games > 0
+                    GROUP BY genre
+                    ORDER BY minutes_played DESC, genre
+                    LIMIT 5;
+                    """, List.of(new ReportColumn("genres", ReportColumn.Type.STRING), minutes)),
+            new ReportQuery("top_games", """
+                    SELECT SUM(minutes_played) AS minutes_played,name
+                    FROM user_games
                     GROUP BY name
-                    ORDER BY SUM(minutes_played) DESC
+                    ORDER BY minutes_played DESC, name
                     LIMIT 50;
-                """);
+                """, List.of(new ReportColumn("name", ReportColumn.Type.STRING), minutes)));
     }
     
     
     /**
      * Executes the database operations: reading config, prompting for user credentials,
-     * inserting game data, and retrieving query results.
+     * inserting game data, and streaming the query results to the result file.
      */
     public void run() {
+        open(false);
+        try {
+            refresh();
+        } finally {
+            close();
+        }
+    }
+
+    /**
+     * Reads the config and credentials and opens the connection pool.
+     * 
+     * @param keepCredentials Whether the pool keeps the credentials to replace broken
+     *                        connections, as a long-running process needs.
+     */
+    public void open(boolean keepCredentials) {
         List<String> config = readConfig();
         String url = config.get(0);
         
         String username = readUsername();
         char[] password = readPassword();
 
-        try (Connection conn = DriverManager.getConnection(url, username, new String(password))) {
-            Arrays.fill(password, '\0');
+        int connections = Math.max(writers, Math.min(poolSize, sqlQueries.size()));
+        try {
+            pool = new ConnectionPool(url, username, password, connections);
+            if (keepCredentials) {
+                pool.reconnectWith(username, password);
+            }
             logger.info("Connected to MySQL successfully!");
-            insertData(conn);
-            selectData(conn);
-        }catch (SQLException e) {
+            Connection conn = pool.borrow();
+            try {
+                prepareSchema(conn);
+            } finally {
+                pool.release(conn);
+            }
+        } catch (SQLException e) {
+            close();
             logger.log(Level.FINE, "Error while connecting to MySQL", e);
             throw new RuntimeException("Error while connecting to MySQL");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            close();
+            logger.log(Level.FINE, "Interrupted while waiting for a connection", e);
+            throw new RuntimeException("Interrupted while waiting for a connection");
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    /**
+     * Applies the pending schema migrations, unless the {@code db.migrate} setting is
+     * {@code false}.
+     * 
+     * @param conn The open database connection.
+     * @throws SQLException If a migration fails.
+     */
+    void prepareSchema(Connection conn) throws SQLException {
+        if (!Settings.getBoolean("db.migrate", true)) {
+            return;
+        }
+        int applied = new SchemaMigrator().migrate(conn);
+        if (applied > 0) {
+            logger.info("Applied " + applied + " schema migrations");
+        }
+    }
+
+    /**
+     * Writes the current game list to the database and streams the query results to the
+     * result file, using the pool from {@link #open}. When delta sync finds nothing to
+     * write and the results have already been written by this manager, the queries are
+     * skipped since their results cannot have changed.
+     */
+    public void refresh() {
+        int written = write(client.getGameList());
+        compactHistory();
+        if (written == 0 && reported) {
+            logger.info("No games changed, keeping " + resultFile.getName());
+            return;
+        }
+        writeResults();
+        if (Settings.getBoolean("analytics.verify", false)) {
+            verifyAgainstAnalytics();
+        }
+    }
+
+    /**
+     * Writes games to the database on pooled connections, taking their genres from the
+     * genre map. When the results are published, the games are also added to the
+     * per-game totals of the next snapshot, since the game list stays empty while
+     * crawling. With per-account storage the games are split by account into up to
+     * {@code db.writers} shards, each written on its own connection, so one account's
+     * rows are always written by one connection in their original order. Shards commit
+     * independently: when one fails the others may already be written, and the sync
+     * state is not saved, so the next write repeats them.
+     *
+     * @param games The games to write.
+     * @return The number of games written, which is lower than the input when delta
+     *         sync skips unchanged games.
+     */
+    public int write(List<Game> games) {
+        if (pool == null) {
+            throw new IllegalStateException("Database connection is not open");
+        }
+        int written = insertChanged(games, this::insertSharded);
+        if (reportServer != null) {
+            if (writtenTotals == null) {
+                writtenTotals = new ReportSnapshot.GameTotals(multiTenant);
+            }
+            writtenTotals.add(games, genreMap);
+        }
+        return written;
+    }
+
+    /**
+     * Runs the report queries and streams their results to the result file.
+     */
+    public void writeResults() {
+        if (pool == null) {
+            throw new IllegalStateException("Database connection is not open");
+        }
+        try {
+            ResultSink sink = openResultSink();
+            try (sink) {
+                selectData(pool, sink);
+            }
+            publish(sink, multiTenant);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error writing to " + resultFile.getName(), e);
+            throw new RuntimeException("Error writing to " + resultFile.getName());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.FINE, "Interrupted while waiting for a connection", e);
+            throw new RuntimeException("Interrupted while waiting for a connection");
+        }
+        reported = true;
+        logger.info("Data written to " + resultFile.getName());
+    }
+
+    private Connection borrow() {
+        if (pool == null) {
+            throw new IllegalStateException("Database connection is not open");
+        }
+        try {
+            return pool.borrow();
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Error while connecting to MySQL", e);
+            throw new RuntimeException("Error while connecting to MySQL");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.log(Level.FINE, "Interrupted while waiting for a connection", e);
+            throw new RuntimeException("Interrupted while waiting for a connection");
+        }
+    }
+
+    /**
+     * Closes the connection pool, if it is open.
+     */
+    public void close() {
+        if (pool != null) {
+            pool.close();
+            pool = null;
+        }
+    }
+
+    /**
+     * Deletes the playtime history that has passed its retention, if history is enabled.
+     */
+    public void compactHistory() {
+        if (history == null) {
+            return;
+        }
+        Connection conn = borrow();
+        try {
+            int deleted = history.compact(conn, Instant.now());
+            if (deleted > 0) {
+                logger.info("Compacted " + deleted + " playtime history rows");
+            }
+        } catch (SQLException e) {
+            logger.log(Level.FINE, "Error while compacting playtime history", e);
+            throw new RuntimeException("Error while compacting playtime history");
+        } finally {
+            pool.release(conn);
+        }
+    }
+
+    /**
+     * Turns on delta sync for the lifetime of this manager. Without a
+     * {@code sync.stateFile} the fingerprints are only kept in memory, which is enough
+     * for a process that refreshes repeatedly.
+     */
+    public void enableDeltaSync() {
+        if (syncState == null) {
+            syncState = new SyncState();
+        }
+    }
+
+    /**
+     * Computes the query results from the in-memory game list instead of the database
+     * and writes them to the result file, so no MySQL server is needed.
+     */
+    public void runOffline() {
+        PlaytimeAnalytics analytics = new PlaytimeAnalytics(client.getGameList(), genreMap);
+        long start = System.nanoTime();
+        try {
+            ResultSink sink = openResultSink();
+            try (sink) {
+                analytics.writeTo(sink);
+            }
+            publish(sink, false);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error writing to " + resultFile.getName(), e);
+            throw new RuntimeException("Error writing to " + resultFile.getName());
+        }
+        Metrics.timer("select").recordSince(start);
+        logger.info("Data computed in memory and written to " + resultFile.getName());
+    }
+
+    /**
+     * Compares the JSON results written by the SQL path with the in-memory analytics
+     * and logs any difference. They only agree when the games table holds exactly the
+     * current game list.
+     */
+    private void verifyAgainstAnalytics() {
+        if (multiTenant) {
+            logger.warning("analytics.verify does not support db.multiTenant, skipping");
+            return;
+        }
+        if (history != null) {
+            logger.warning("analytics.verify does not support history.enabled, skipping");
+            return;
+        }
+        if (!"json".equals(resultFormat)) {
+            logger.warning("analytics.verify needs result.format=json, skipping");
+            return;
+        }
+        try {
+            ByteArrayOutputStream expected = new ByteArrayOutputStream();
+            try (ResultSink sink = new JsonResultSink(expected)) {
+                new PlaytimeAnalytics(client.getGameList(), genreMap).writeTo(sink);
+            }
+            ObjectMapper objectMapper = new ObjectMapper();
+            JsonNode fromMemory = objectMapper.readTree(expected.toByteArray());
+            JsonNode fromSql = objectMapper.readTree(resultFile);
+            if (fromMemory.equals(fromSql)) {
+                logger.info("In-memory analytics match the SQL results");
+            } else {
+                logger.warning("In-memory analytics differ from the SQL results: " + fromMemory + " vs " + fromSql);
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error comparing results", e);
+            logger.warning("Could not compare in-memory analytics with the SQL results");
+        }
+    }
+
+    /**
+     * Serves the results on a report API from now on: every time the results are
+     * written, they are also handed to the server as a new snapshot.
+     *
+     * @param reportServer The server, or {@code null} to stop publishing.
+     */
+    public void publishTo(ReportServer reportServer) {
+        this.reportServer = reportServer;
+    }
+
+    /**
+     * Opens the configured result sink on the result file. When the results are
+     * published, the sink also records them for the snapshot.
+     * 
+     * @return The open sink.
+     * @throws IOException If the file cannot be opened.
+     */
+    private ResultSink openResultSink() throws IOException {
+        ResultSink sink = ResultSink.open(resultFile, resultFormat);
+        return reportServer == null ? sink : new ReportSnapshot.Recorder(sink);
+    }
+
+    /**
+     * Hands the results recorded by a sink from {@link #openResultSink()} to the
+     * report server, replacing the snapshot it serves. Called once the sink is closed,
+     * so the server never serves results that were not written. The per-game totals
+     * come from the games passed to {@link #write(List)} when there were any, and
+     * from the client's game list otherwise.
+     *
+     * @param sink    The closed sink the results were written to.
+     * @param summed  Whether the reports add up a game's minutes across libraries, as
+     *                the per-account tables do, rather than keeping the last value.
+     * @throws IOException If building the snapshot fails.
+     */
+    private void publish(ResultSink sink, boolean summed) throws IOException {
+        if (sink instanceof ReportSnapshot.Recorder recorder) {
+            long start = System.nanoTime();
+            reportServer.publish(writtenTotals == null
+                ? recorder.build(client.getGameList(), genreMap, summed)
+                : recorder.build(writtenTotals));
+            Metrics.timer("api_snapshot").recordSince(start);
         }
-        
     }
     
     /**
-     * Reads database configuration from a resource file.
+     * Reads database configuration from the "config.txt" resource, or from the file
+     * named by the {@code config.file} setting.
      * 
      * @return A list containing database connection details.
      */
     private static List<String> readConfig() {
         List<String> configs = new ArrayList<String>();
-        InputStream inputstream = Client.class.getClassLoader().getResourceAsStream("config.txt");
+        InputStream inputstream = Settings.openFileOrResource("config.file", "config.txt");
         if (inputstream == null) {
-            throw new IllegalStateException("Error loading in file from resources");
+            throw new IllegalStateException("config.txt not found: set config.file or add it to the resources");
         }
         
         try (Scanner scanner = new Scanner(inputstream)) {
@@ -107,11 +525,16 @@ public class DatabaseManager {
     }
 
     /**
-     * Prompts the user to enter the MySQL username.
+     * Reads the MySQL username from the {@code db.user} setting, or prompts the user
+     * to enter it when the setting is absent.
      * 
-     * @return The username inputted by the user.
+     * @return The username.
      */
     private String readUsername() {
+        String username = Settings.get("db.user", null);
+        if (username != null) {
+            return username;
+        }
         logger.info("Enter MySQL username: ");
         Console c = System.console();
         if(c == null) {
@@ -121,11 +544,27 @@ public class DatabaseManager {
     }
     
     /**
-     * Prompts the user to enter the MySQL password.
+     * Reads the MySQL password from the file named by {@code db.passwordFile} or from
+     * the {@code db.password} setting, or prompts the user to enter it when neither is set.
+     * A trailing line break in the password file is ignored.
      * 
-     * @return The password inputted by the user.
+     * @return The password.
      */
     private char[] readPassword() {
+        String passwordFile = Settings.get("db.passwordFile", null);
+        if (passwordFile != null) {
+            try {
+                String password = Files.readString(Path.of(passwordFile), StandardCharsets.UTF_8);
+                return password.stripTrailing().toCharArray();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error reading " + passwordFile, e);
+                throw new RuntimeException("Error reading password file " + passwordFile);
+            }
+        }
+        String password = Settings.get("db.password", null);
+        if (password != null) {
+            return password.toCharArray();
+        }
         logger.info("Enter MySQL password: ");
         Console c = System.console();
         if(c == null) {
@@ -135,107 +574,577 @@ public class DatabaseManager {
     }
     
     /**
-     * Inserts game data from the client into the database.
+     * Inserts game data from the client into the database and logs the achieved row rate.
      * 
-     * @param url      The database URL.
-     * @param username The database username.
-     * @param password The database password.
+     * @param conn The open database connection.
+     * @return The number of games written.
      */
-    private void insertData(Connection conn) {
-        
-        String insertOrUpdate = "INSERT INTO games (name, minutes_played, last_played_hours, genres) " +
-                            "VALUES (?, ?, ?, ?) " +
-                            "ON DUPLICATE KEY UPDATE " +
-                            "minutes_played = VALUES(minutes_played), " +
-                            "last_played_hours = VALUES(last_played_hours), " +
-                            "genres = VALUES(genres)";
-        try (PreparedStatement insertStatement = conn.prepareStatement(insertOrUpdate)) {
-                for (Game game : client.getGameList()) {
-                    insertStatement.setString(1, game.getName());
-                    insertStatement.setString(2, game.getMP());
-                    insertStatement.setString(3, game.getLPE());
-                        
-                    String genre = Optional.ofNullable(genreMap.getMap().get(game.getName()))
-                        .map(s -> s.strip()).orElse("Unknown");
-                    insertStatement.setString(4,genre);
-                    insertStatement.executeUpdate();
+    int insertData(Connection conn) {
+        return insertData(conn, client.getGameList());
+    }
+
+    /**
+     * Inserts games into the database and logs the achieved row rate.
+     * With delta sync enabled only new or changed games are written, and the stored
+     * fingerprints are updated once the write has succeeded.
+     * 
+     * @param conn  The open database connection.
+     * @param games The games to write.
+     * @return The number of games written.
+     */
+    int insertData(Connection conn, List<Game> games) {
+        return insertChanged(games, changed -> insertRows(conn, changed));
+    }
+
+    /**
+     * Writes games to one or more database connections.
+     */
+    private interface RowWriter {
+        void write(List<Game> games) throws SQLException;
+    }
+
+    /**
+     * Filters the games through delta sync, writes the remaining ones, records the
+     * metrics and row rate, and saves the sync state once the write has succeeded.
+     * Per-account storage needs every game's Steam ID and app id.
+     *
+     * @param games  The incoming games.
+     * @param writer Writes the games that need to be written.
+     * @return The number of games written.
+     */
+    private int insertChanged(List<Game> games, RowWriter writer) {
+        if (multiTenant) {
+            for (Game game : games) {
+                if (game.getSteamId() == 0 || game.getAppId() == 0) {
+                    throw new IllegalArgumentException("Game " + game.getName() + " has no Steam ID or app id, "
+                        + "which db.multiTenant needs: request a steamid in the URL and add the appid key");
                 }
-                    
-                logger.info("Data inserted successfully");
+            }
+        }
+        if (syncState != null) {
+            games = selectChanged(games);
+        }
+        long start = System.nanoTime();
+        try {
+            writer.write(games);
+            logger.info("Data inserted successfully");
         } catch (SQLException e ) {
+            Metrics.count("insert_errors", 1);
             logger.log(Level.FINE, "Error while executing SQL statement", e);
             throw new RuntimeException("Error while executing SQL statement");
         }
-
+        Metrics.timer("insert").recordSince(start);
+        Metrics.count("insert_rows", games.size());
+        logRate(games.size(), System.nanoTime() - start);
+        if (syncState != null) {
+            saveSyncState(games);
+        }
+        return games.size();
     } 
+
+    /**
+     * Loads the sync state on first use and keeps only the games that are new or changed
+     * since they were last written, logging the inserted/updated/unchanged counts.
+     * 
+     * @param games The incoming games.
+     * @return The games that need to be written.
+     */
+    private List<Game> selectChanged(List<Game> games) {
+        if (!syncLoaded) {
+            try {
+                syncState.load();
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error reading sync state", e);
+                throw new RuntimeException("Error reading sync state");
+            }
+            syncLoaded = true;
+        }
+        List<Game> changed = new ArrayList<Game>();
+        int inserted = 0;
+        int updated = 0;
+        for (Game game : games) {
+            switch (syncState.classify(game, genreMap.genreOf(game.getName()))) {
+                case INSERTED -> { inserted++; changed.add(game); }
+                case UPDATED -> { updated++; changed.add(game); }
+                case UNCHANGED -> { }
+            }
+        }
+        logger.info("Delta sync: " + inserted + " inserted, " + updated + " updated, "
+            + (games.size() - changed.size()) + " unchanged");
+        return changed;
+    }
+
+    /**
+     * Records the fingerprints of the written games and saves the sync state.
+     * 
+     * @param written The games that were written to the database.
+     */
+    private void saveSyncState(List<Game> written) {
+        for (Game game : written) {
+            syncState.record(game, genreMap.genreOf(game.getName()));
+        }
+        try {
+            syncState.save();
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error writing sync state", e);
+            throw new RuntimeException("Error writing sync state");
+        }
+    }
+
+    /**
+     * Writes the games on one connection.
+     *
+     * @param conn  The open database connection.
+     * @param games The games to write.
+     * @throws SQLException If a batch fails.
+     */
+    private void insertRows(Connection conn, List<Game> games) throws SQLException {
+        try (PreparedStatement insertStatement = conn.prepareStatement(multiTenant ? INSERT_OR_UPDATE_USER_GAME : INSERT_OR_UPDATE)) {
+            insertBatched(conn, insertStatement, games);
+        }
+    }
+
+    /**
+     * Splits the games by account into {@code writers} shards and writes each non-empty
+     * shard on its own pooled connection and virtual thread. Every shard is waited for
+     * before the first failure is reported.
+     *
+     * @param games The games to write.
+     * @throws SQLException If a shard fails.
+     */
+    private void insertSharded(List<Game> games) throws SQLException {
+        List<List<Game>> shards = new ArrayList<List<Game>>();
+        for (int i = 0; i < writers; i++) {
+            shards.add(new ArrayList<Game>());
+        }
+        for (Game game : games) {
+            shards.get(Math.floorMod(Long.hashCode(game.getSteamId()), writers)).add(game);
+        }
+        shards.removeIf(List::isEmpty);
+        if (shards.size() <= 1) {
+            Connection conn = borrow();
+            try {
+                insertRows(conn, games);
+            } finally {
+                pool.release(conn);
+            }
+            return;
+        }
+        List<Future<Void>> results = new ArrayList<Future<Void>>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (List<Game> shard : shards) {
+                results.add(executor.submit(() -> {
+                    Connection conn = pool.borrow();
+                    try {
+                        insertRows(conn, shard);
+                    } finally {
+                        pool.release(conn);
+                    }
+                    return null;
+                }));
+            }
+        }
+        SQLException failure = null;
+        for (Future<Void> result : results) {
+            try {
+                result.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof SQLException se) {
+                    if (failure == null) {
+                        failure = se;
+                    } else {
+                        failure.addSuppressed(se);
+                    }
+                } else if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                } else {
+                    logger.log(Level.FINE, "Interrupted while waiting for a connection", e.getCause());
+                    throw new RuntimeException("Interrupted while waiting for a connection");
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                logger.log(Level.FINE, "Interrupted while writing games", e);
+                throw new RuntimeException("Interrupted while writing games");
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    /**
+     * Sends the upserts in batches of {@code batchSize}, committing once per batch.
+     * The statement is a single-row INSERT so the connector can rewrite each batch
+     * into one multi-row statement when {@code rewriteBatchedStatements=true} is set
+     * on the JDBC URL. In the same transaction the batch's existing rows are locked
+     * and {@code genre_totals} is adjusted by the difference between their old and new
+     * minutes and genres, in key order so that concurrent writers take the locks in
+     * the same order. With history enabled, the changes in minutes played are recorded
+     * in the same transaction. A batch the database aborts to resolve a deadlock is rolled back
+     * and retried; any other failed batch is rolled back before the exception is rethrown.
+     *
+     * @param conn            The open database connection.
+     * @param insertStatement The prepared upsert statement.
+     * @param games           The games to write.
+     * @throws SQLException If a batch fails.
+     */
+    private void insertBatched(Connection conn, PreparedStatement insertStatement, List<Game> games) throws SQLException {
+        boolean autoCommit = conn.getAutoCommit();
+        conn.setAutoCommit(false);
+        try (PreparedStatement adjustStatement = conn.prepareStatement(multiTenant ? ADJUST_USER_GENRE_TOTALS : ADJUST_GENRE_TOTALS)) {
+            for (int from = 0; from < games.size(); from += batchSize) {
+                List<Game> batch = games.subList(from, Math.min(from + batchSize, games.size()));
+                for (int attempt = 1; ; attempt++) {
+                    try {
+                        writeBatch(conn, insertStatement, adjustStatement, batch);
+                        conn.commit();
+                        break;
+                    } catch (SQLException e) {
+                        conn.rollback();
+                        insertStatement.clearBatch();
+                        adjustStatement.clearBatch();
+                        if (!"40001".equals(e.getSQLState()) || attempt >= DEADLOCK_ATTEMPTS) {
+                            throw e;
+                        }
+                        Metrics.count("insert_deadlock_retries", 1);
+                        logger.log(Level.FINE, "Retrying batch after deadlock", e);
+                    }
+                }
+            }
+        } finally {
+            conn.setAutoCommit(autoCommit);
+        }
+    }
+
+    /**
+     * Sends one batch of upserts and its genre total adjustments without committing.
+     *
+     * @param conn            The open database connection, inside the batch's transaction.
+     * @param insertStatement The prepared upsert statement.
+     * @param adjustStatement The prepared genre total adjustment.
+     * @param batch           The games to write.
+     * @throws SQLException If a statement fails.
+     */
+    private void writeBatch(Connection conn, PreparedStatement insertStatement, PreparedStatement adjustStatement,
+            List<Game> batch) throws SQLException {
+        List<PlaytimeHistory.Delta> played = history == null ? null : new ArrayList<PlaytimeHistory.Delta>();
+        Map<TotalKey,GenreDelta> deltas = genreDeltas(conn, batch, played);
+        for (Game game : batch) {
+            bindGame(insertStatement, game);
+            insertStatement.addBatch();
+        }
+        insertStatement.executeBatch();
+        for (Map.Entry<TotalKey,GenreDelta> entry : deltas.entrySet()) {
+            GenreDelta delta = entry.getValue();
+            if (delta.minutes != 0 || delta.games != 0) {
+                int i = 1;
+                if (multiTenant) {
+                    adjustStatement.setLong(i++, entry.getKey().steamId());
+                }
+                adjustStatement.setString(i++, entry.getKey().genre());
+                adjustStatement.setLong(i++, delta.minutes);
+                adjustStatement.setInt(i, delta.games);
+                adjustStatement.addBatch();
+            }
+        }
+        adjustStatement.executeBatch();
+        if (played != null) {
+            history.append(conn, played, Instant.now());
+        }
+    }
+
+    /**
+     * The change a batch makes to one genre's total.
+     */
+    private static final class GenreDelta {
+        long minutes;
+        int games;
+    }
+
+    /**
+     * The genre total a delta applies to. The Steam ID is 0 for the shared totals.
+     */
+    private record TotalKey(long steamId, String genre) {}
+
+    private static final Comparator<TotalKey> TOTAL_ORDER =
+        Comparator.comparingLong(TotalKey::steamId).thenComparing(TotalKey::genre);
+
+    /**
+     * A game's row as it is stored before the batch is written.
+     */
+    private record StoredGame(long minutes, String genre) {}
+
+    /**
+     * Locks the rows the batch will overwrite and works out how the batch changes the
+     * genre totals: every stored row leaves its old genre and every written game joins
+     * its new one. Names are matched ignoring case, as MySQL's default collation does,
+     * and a name that occurs twice in the batch replaces its own first occurrence.
+     * With per-account storage rows are matched by Steam ID and app id instead, and
+     * each account has its own totals. The change of every stored game's minutes is
+     * also added to {@code played}, if given.
+     *
+     * @param conn   The open database connection, inside the batch's transaction.
+     * @param batch  The games about to be written.
+     * @param played Receives the changes in minutes played, or {@code null}.
+     * @return The change per genre total, in key order.
+     * @throws SQLException If the rows cannot be read.
+     */
+    private Map<TotalKey,GenreDelta> genreDeltas(Connection conn, List<Game> batch,
+            List<PlaytimeHistory.Delta> played) throws SQLException {
+        Map<String,StoredGame> stored = new TreeMap<String,StoredGame>(String.CASE_INSENSITIVE_ORDER);
+        String sql = multiTenant
+            ? "SELECT steam_id, app_id, minutes_played, genres FROM user_games WHERE (steam_id, app_id) IN ("
+                + String.join(",", Collections.nCopies(batch.size(), "(?, ?)")) + ") FOR UPDATE"
+            : "SELECT name, minutes_played, genres FROM games WHERE name IN ("
+                + String.join(",", Collections.nCopies(batch.size(), "?")) + ") FOR UPDATE";
+        try (PreparedStatement select = conn.prepareStatement(sql)) {
+            int i = 1;
+            for (Game game : batch) {
+                if (multiTenant) {
+                    select.setLong(i++, game.getSteamId());
+                    select.setInt(i++, game.getAppId());
+                } else {
+                    select.setString(i++, game.getName());
+                }
+            }
+            try (ResultSet rs = select.executeQuery()) {
+                while (rs.next()) {
+                    String key = multiTenant ? rs.getLong(1) + ":" + rs.getInt(2) : rs.getString(1);
+                    int column = multiTenant ? 3 : 2;
+                    String genre = rs.getString(column + 1);
+                    stored.put(key, new StoredGame(rs.getLong(column), genre == null ? "Unknown" : genre));
+                }
+            }
+        }
+        Map<TotalKey,GenreDelta> deltas = new TreeMap<TotalKey,GenreDelta>(TOTAL_ORDER);
+        for (Game game : batch) {
+            String key = multiTenant ? game.getSteamId() + ":" + game.getAppId() : game.getName();
+            long steamId = multiTenant ? game.getSteamId() : 0;
+            StoredGame old = stored.get(key);
+            if (old != null) {
+                GenreDelta delta = deltas.computeIfAbsent(new TotalKey(steamId, old.genre()), k -> new GenreDelta());
+                delta.minutes -= old.minutes();
+                delta.games--;
+            }
+            String genre = genreMap.genreOf(game.getName());
+            if (old != null && played != null) {
+                played.add(new PlaytimeHistory.Delta(steamId, game.getAppId(), game.getName(), genre,
+                    game.getMinutesPlayed() - old.minutes()));
+            }
+            GenreDelta delta = deltas.computeIfAbsent(new TotalKey(steamId, genre), k -> new GenreDelta());
+            delta.minutes += game.getMinutesPlayed();
+            delta.games++;
+            stored.put(key, new StoredGame(game.getMinutesPlayed(), genre));
+        }
+        return deltas;
+    }
+
+    /**
+     * Binds the columns of one game to the upsert statement with setters matching the
+     * column types. The hours since last played are rounded to the column's two
+     * decimals; games that were never played or have no derived hours are stored as NULL.
+     * 
+     * @param insertStatement The prepared upsert statement.
+     * @param game            The game to bind.
+     * @throws SQLException If a parameter cannot be set.
+     */
+    private void bindGame(PreparedStatement insertStatement, Game game) throws SQLException {
+        int i = 1;
+        if (multiTenant) {
+            insertStatement.setLong(i++, game.getSteamId());
+            insertStatement.setInt(i++, game.getAppId());
+        }
+        insertStatement.setString(i++, game.getName());
+        insertStatement.setInt(i++, game.getMinutesPlayed());
+        double hours = game.getHoursSinceLastPlayed();
+        if (game.isNeverPlayed() || Double.isNaN(hours)) {
+            insertStatement.setNull(i++, Types.DECIMAL);
+        } else {
+            insertStatement.setBigDecimal(i++, BigDecimal.valueOf(hours).setScale(2, RoundingMode.HALF_UP));
+        }
+        insertStatement.setString(i, genreMap.genreOf(game.getName()));
+    }
+
+    /**
+     * Logs how many rows were written and the resulting rows per second.
+     * 
+     * @param rows    The number of rows written.
+     * @param elapsed The elapsed time in nanoseconds.
+     */
+    private void logRate(int rows, long elapsed) {
+        double seconds = elapsed / 1_000_000_000.0;
+        double rate = seconds > 0 ? rows / seconds : 0;
+        logger.info(() -> String.format("Inserted %d rows in %.3f s (%.0f rows/s, batch size %d)",
+            rows, seconds, rate, batchSize));
+    }
     
     
     /**
-     * Executes predefined SQL queries and processes results.
+     * A report query that has been executed and whose rows have not been read yet.
+     */
+    private record PendingQuery(Connection conn, PreparedStatement statement, ResultSet resultSet) {
+
+        void close(ConnectionPool pool) {
+            try {
+                resultSet.close();
+                statement.close();
+            } catch (SQLException e) {
+                logger.log(Level.FINE, "Error closing SQL query", e);
+            } finally {
+                pool.release(conn);
+            }
+        }
+    }
+
+    /**
+     * Executes the report queries and streams each result set into the sink, one
+     * section per query. Queries run in parallel, each on its own pooled connection,
+     * so their latencies overlap; the rows are written in catalog order. At most as
+     * many queries as there are connections are started ahead of the one being written.
      * 
-     * @param url      The database URL.
-     * @param username The database username.
-     * @param password The database password.
+     * @param pool The connection pool.
+     * @param sink The sink receiving the rows.
+     * @throws IOException          If writing to the sink fails.
+     * @throws InterruptedException If interrupted while waiting for a connection.
      */
-    private void selectData(Connection conn)  {
-        
-        for (String query : sqlQueries) {
-            try(PreparedStatement selectStatement = conn.prepareStatement(query)) {
-                ResultSet resultSet = selectStatement.executeQuery();
-                    
-                convertResultSet(resultSet,query);
-            }catch (SQLException e) {
+    void selectData(ConnectionPool pool, ResultSink sink) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        int window = pool.size();
+        List<Future<PendingQuery>> pending = new ArrayList<Future<PendingQuery>>();
+        int consumed = 0;
+        int closed = 0;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            try {
+                for (; consumed < sqlQueries.size(); consumed++) {
+                    while (pending.size() < sqlQueries.size() && pending.size() < consumed + window) {
+                        Connection conn = pool.borrow();
+                        ReportQuery query = sqlQueries.get(pending.size());
+                        pending.add(executor.submit(() -> execute(pool, conn, query)));
+                    }
+                    PendingQuery result = pending.get(consumed).get();
+                    ReportQuery query = sqlQueries.get(consumed);
+                    try {
+                        sink.beginSection(query.name());
+                        convertResultSet(result.resultSet(), query, sink);
+                        sink.endSection();
+                    } finally {
+                        result.close(pool);
+                        closed++;
+                    }
+                }
+            } catch (SQLException | ExecutionException e) {
+                Metrics.count("select_errors", 1);
                 logger.log(Level.FINE, "Error while executing SQL query", e);
+                discard(pending, closed, pool);
                 throw new RuntimeException("Error while executing SQL query");
-            } 
+            } catch (IOException | InterruptedException | RuntimeException e) {
+                discard(pending, closed, pool);
+                throw e;
+            }
         }
+        Metrics.timer("select").recordSince(start);
         logger.info("Data extracted successfully");
             
     }
-    
-    
+
     /**
-     * Converts the SQL query result set into a map for further processing.
+     * Prepares and executes one report query. On failure the connection is returned
+     * to the pool before the exception is rethrown.
      * 
-     * @param resultSet The result set from an executed SQL query.
-     * @param query     The SQL query that was executed.
-     * @throws SQLException If an error occurs while reading the result set.
+     * @param pool  The connection pool.
+     * @param conn  The borrowed connection to run on.
+     * @param query The query.
+     * @return The open result set with its statement and connection.
+     * @throws SQLException If the query fails.
      */
-    private void convertResultSet(ResultSet resultSet, String query) throws SQLException {
-        
-        while (resultSet.next()) {
-            String minutes = resultSet.getString("minutes_played");
-
-            if (query.contains("GROUP BY genres")) {
-                String genre = resultSet.getString("genres");
-                resultMap.put(genre,minutes);
+    private static PendingQuery execute(ConnectionPool pool, Connection conn, ReportQuery query) throws SQLException {
+        PreparedStatement statement = null;
+        try {
+            statement = conn.prepareStatement(query.sql(), ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            if (query.streaming()) {
+                // MySQL Connector/J: send rows one at a time instead of buffering them
+                statement.setFetchSize(Integer.MIN_VALUE);
+            } else if (query.fetchSize() > 0) {
+                statement.setFetchSize(query.fetchSize());
+            }
+            List<Object> params = query.params();
+            for (int i = 0; i < params.size(); i++) {
+                statement.setObject(i + 1, params.get(i));
             }
-            if(query.contains("GROUP BY name")) {
-                String name = resultSet.getString("name");
-                resultMap.put(name,minutes);
+            return new PendingQuery(conn, statement, statement.executeQuery());
+        } catch (SQLException e) {
+            if (statement != null) {
+                statement.close();
             }
+            pool.release(conn);
+            throw e;
         }
     }
 
     /**
-     * Writes the query results to a JSON file.
+     * Closes the queries from index {@code from} on once they have finished executing.
+     * Queries that failed have already given their connection back.
+     * 
+     * @param pending The submitted queries.
+     * @param from    The first query that has not been closed yet.
+     * @param pool    The connection pool.
      */
-    public void writeResultToFile() {
-        ObjectMapper objectMapper = new ObjectMapper();
-        try {
-            String json = objectMapper.writeValueAsString(resultMap);
-            File file = new File("result.json");
-            try(BufferedWriter writer = new BufferedWriter(new FileWriter(file))) {
-                writer.write(json);
-                logger.info("Data written to result.json");
-            } catch(IOException e) {
-                logger.log(Level.FINE, "Error writing to result.json", e);
-                throw new RuntimeException("Error writing to result.json");
-            }
-
-        } catch (JsonProcessingException e) {
-            logger.log(Level.FINE, "Error writing to result.json", e);
-            throw new RuntimeException("Error processing resultMap");
+    private static void discard(List<Future<PendingQuery>> pending, int from, ConnectionPool pool) {
+        for (int i = from; i < pending.size(); i++) {
+            try {
+                pending.get(i).get().close(pool);
+            } catch (ExecutionException e) {
+                // the task already released its connection
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+    
+    
+    /**
+     * Writes each row of a result set to the sink, reading every output column of the
+     * query with the getter for its type.
+     * 
+     * @param resultSet The result set from an executed SQL query.
+     * @param query     The query that was executed.
+     * @param sink      The sink receiving the rows.
+     * @throws SQLException If an error occurs while reading the result set.
+     * @throws IOException  If writing to the sink fails.
+     */
+    void convertResultSet(ResultSet resultSet, ReportQuery query, ResultSink sink) throws SQLException, IOException {
+        List<ReportColumn> columns = query.columns();
+        int[] indexes = new int[columns.size()];
+        for (int i = 0; i < indexes.length; i++) {
+            indexes[i] = resultSet.findColumn(columns.get(i).name());
+        }
+        while (resultSet.next()) {
+            Metrics.count("select_rows", 1);
+            sink.beginRow();
+            for (int i = 0; i < indexes.length; i++) {
+                ReportColumn column = columns.get(i);
+                switch (column.type()) {
+                    case STRING -> sink.writeString(column.name(), resultSet.getString(indexes[i]));
+                    case LONG -> {
+                        long value = resultSet.getLong(indexes[i]);
+                        if (resultSet.wasNull()) {
+                            sink.writeNull(column.name());
+                        } else {
+                            sink.writeNumber(column.name(), value);
+                        }
+                    }
+                    case DOUBLE -> {
+                        double value = resultSet.getDouble(indexes[i]);
+                        if (resultSet.wasNull()) {
+                            sink.writeNull(column.name());
+                        } else {
+                            sink.writeNumber(column.name(), value);
+                        }
+                    }
+                }
+            }
+            sink.endRow();
         }
     }
 }
@@ -0,0 +1,202 @@
+package mygroup;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * A {@link ResponseCache} that keeps one file per URL in a directory, so responses
+ * survive between runs. File names are the SHA-256 of the URL, which keeps API keys
+ * out of the directory listing. A file that cannot be read is treated as a miss.
+ *
+ * <p>The directory is kept below a maximum size. When a write takes it over the limit,
+ * the entries written longest ago are deleted first, so URLs that are no longer fetched
+ * age out. Entries that are still fetched are rewritten whenever they are revalidated.
+ */
+public class DiskResponseCache implements ResponseCache {
+    private static final int MAGIC = 0x47524331; // "GRC1"
+    private final Path directory;
+    private final long maxBytes;
+    private long totalBytes;
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * Constructs a cache in the given directory that holds at most
+     * {@code cache.maxDiskMegabytes} (default 512) of responses.
+     *
+     * @param directory The cache directory.
+     */
+    public DiskResponseCache(Path directory) {
+        this(directory, Settings.getLong("cache.maxDiskMegabytes", 512) * 1024 * 1024);
+    }
+
+    /**
+     * Constructs a cache in the given directory, creating it if needed. Leftovers of
+     * interrupted writes are deleted, and the oldest entries too if the directory is
+     * already over the limit.
+     *
+     * @param directory The cache directory.
+     * @param maxBytes  The largest total size of the cache files.
+     */
+    public DiskResponseCache(Path directory, long maxBytes) {
+        if (maxBytes < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1 byte");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        try {
+            Files.createDirectories(directory);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path file : files.toList()) {
+                    if (file.getFileName().toString().endsWith(".tmp")) {
+                        Files.deleteIfExists(file);
+                    } else {
+                        totalBytes += Files.size(file);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error opening response cache directory", e);
+            throw new RuntimeException("Error opening response cache directory " + directory);
+        }
+        evictIfFull();
+    }
+
+    @Override
+    public CachedResponse get(String url) {
+        Path file = fileFor(url);
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                return null;
+            }
+            long fetchedAt = in.readLong();
+            String etag = readOptional(in);
+            String lastModified = readOptional(in);
+            byte[] body = new byte[in.readInt()];
+            in.readFully(body);
+            return new CachedResponse(new String(body, StandardCharsets.UTF_8), etag, lastModified, fetchedAt);
+        } catch (NoSuchFileException e) {
+            return null;
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Ignoring unreadable cache entry " + file, e);
+            return null;
+        }
+    }
+
+    @Override
+    public void put(String url, CachedResponse response) {
+        Path file = fileFor(url);
+        Path tmp = file.resolveSibling(file.getFileName() + "." + Thread.currentThread().threadId() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(MAGIC);
+                out.writeLong(response.fetchedAt());
+                writeOptional(out, response.etag());
+                writeOptional(out, response.lastModified());
+                byte[] body = response.body().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(body.length);
+                out.write(body);
+            }
+            long written = Files.size(tmp);
+            synchronized (this) {
+                long replaced = sizeIfExists(file);
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                totalBytes += written - replaced;
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error writing cache entry " + file, e);
+            logger.warning("Could not write response cache entry " + file.getFileName());
+        }
+        evictIfFull();
+    }
+
+    /**
+     * Deletes the entries written longest ago until the cache is back under its limit.
+     */
+    private synchronized void evictIfFull() {
+        if (totalBytes <= maxBytes) {
+            return;
+        }
+        record Entry(Path file, long size, FileTime written) {}
+        List<Entry> entries = new ArrayList<Entry>();
+        long total = 0;
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                if (file.getFileName().toString().endsWith(".tmp")) {
+                    continue;
+                }
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+                    entries.add(new Entry(file, attributes.size(), attributes.lastModifiedTime()));
+                    total += attributes.size();
+                } catch (NoSuchFileException e) {
+                    // deleted by another thread or process in the meantime
+                }
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error listing response cache directory", e);
+            return;
+        }
+        entries.sort(Comparator.comparing(Entry::written));
+        int evicted = 0;
+        for (Entry entry : entries) {
+            if (total <= maxBytes) {
+                break;
+            }
+            try {
+                Files.deleteIfExists(entry.file());
+                total -= entry.size();
+                evicted++;
+            } catch (IOException e) {
+                logger.log(Level.FINE, "Error deleting cache entry " + entry.file(), e);
+            }
+        }
+        totalBytes = total;
+        Metrics.count("cache_evictions", evicted);
+    }
+
+    private static long sizeIfExists(Path file) throws IOException {
+        try {
+            return Files.size(file);
+        } catch (NoSuchFileException e) {
+            return 0;
+        }
+    }
+
+    private Path fileFor(String url) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(url.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static String readOptional(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    private static void writeOptional(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+}
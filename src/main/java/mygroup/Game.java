@@ -2,25 +2,119 @@ package mygroup;
 
 /**
  * Represents a game with its name, minutes played, and last played time in epoch format.
+ * Minutes and the epoch are kept as primitives; the string forms returned by
+ * {@link #getMP()} and {@link #getLPE()} are only built when they are asked for.
+ * A game can also carry the Steam ID of the account owning it and its Steam app id;
+ * both are 0 when unknown.
  */
 public class Game {
-    private String name;
-    private String minutesPlayed;
-    private String lastPlayedEpoch;
+    private static final String NEVER_PLAYED = "Never played";
+    private long steamId;
+    private final int appId;
+    private final String name;
+    private final int minutesPlayed;
+    private long lastPlayedEpoch;
+    private long referenceEpoch = -1;
+    private boolean neverPlayed;
 
     /**
-     * Constructs a new Game instance.
+     * Constructs a new Game instance from the string values found in the JSON response.
+     * An empty or {@code "null"} value counts as 0.
      *
      * @param name The name of the game.
      * @param minutesPlayed The total minutes played.
      * @param lastPlayedEpoch The last played time in epoch format (seconds since Unix epoch).
      */
     public Game(String name, String minutesPlayed, String lastPlayedEpoch) {
+        this(name, minutesPlayed, lastPlayedEpoch, "");
+    }
+
+    /**
+     * Constructs a new Game instance from the string values found in the JSON response,
+     * including the Steam app id.
+     *
+     * @param name The name of the game.
+     * @param minutesPlayed The total minutes played.
+     * @param lastPlayedEpoch The last played time in epoch format (seconds since Unix epoch).
+     * @param appId The Steam app id, or "" if unknown.
+     */
+    public Game(String name, String minutesPlayed, String lastPlayedEpoch, String appId) {
+        this(0, Math.toIntExact(parse(name, appId)), name,
+            Math.toIntExact(parse(name, minutesPlayed)), parse(name, lastPlayedEpoch));
+    }
+
+    /**
+     * Constructs a new Game instance from typed values.
+     *
+     * @param name The name of the game.
+     * @param minutesPlayed The total minutes played.
+     * @param lastPlayedEpoch The last played time in seconds since the Unix epoch.
+     */
+    public Game(String name, int minutesPlayed, long lastPlayedEpoch) {
+        this(0, 0, name, minutesPlayed, lastPlayedEpoch);
+    }
+
+    /**
+     * Constructs a new Game instance owned by an account from typed values.
+     *
+     * @param steamId The Steam ID of the owning account, or 0 if unknown.
+     * @param appId The Steam app id, or 0 if unknown.
+     * @param name The name of the game.
+     * @param minutesPlayed The total minutes played.
+     * @param lastPlayedEpoch The last played time in seconds since the Unix epoch.
+     */
+    public Game(long steamId, int appId, String name, int minutesPlayed, long lastPlayedEpoch) {
+        this.steamId = steamId;
+        this.appId = appId;
         this.name = name;
         this.minutesPlayed = minutesPlayed;
         this.lastPlayedEpoch = lastPlayedEpoch;
     }
 
+    /**
+     * Parses a numeric field. Steam leaves out or nulls {@code playtime_forever} and
+     * {@code rtime_last_played} for some games, so a missing field, which reads as "",
+     * and a JSON null, which reads as "null", both count as 0; a game without minutes
+     * is then marked as never played.
+     */
+    private static long parse(String name, String value) {
+        if (value.isEmpty() || "null".equals(value)) {
+            return 0;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Non-numeric playtime value for " + name + ": " + value);
+        }
+    }
+
+    /**
+     * Gets the Steam ID of the account owning the game.
+     *
+     * @return The Steam ID, or 0 if unknown.
+     */
+    public long getSteamId() {
+        return steamId;
+    }
+
+    /**
+     * Sets the Steam ID of the account owning the game.
+     *
+     * @param steamId The Steam ID.
+     */
+    public void setSteamId(long steamId) {
+        this.steamId = steamId;
+    }
+
+    /**
+     * Gets the Steam app id of the game.
+     *
+     * @return The app id, or 0 if unknown.
+     */
+    public int getAppId() {
+        return appId;
+    }
+
     /**
      * Gets the name of the game.
      *
@@ -29,42 +123,118 @@ public class Game {
     public String getName() {
         return name;
     }
-    
+
     /**
      * Gets the total minutes played.
      *
      * @return The minutes played as a string.
      */
     public String getMP() {
+        return Integer.toString(minutesPlayed);
+    }
+
+    /**
+     * Gets the total minutes played.
+     *
+     * @return The minutes played.
+     */
+    public int getMinutesPlayed() {
         return minutesPlayed;
     }
 
     /**
-     * Gets the last played time in epoch format.
+     * Gets the last played time. Before {@link #EpochToHours()} this is the epoch,
+     * afterwards the hours since last played formatted with two decimals, or
+     * "Never played" for games that have been marked as such.
      *
      * @return The last played time as a string.
      */
     public String getLPE() {
+        if (neverPlayed) {
+            return NEVER_PLAYED;
+        }
+        if (referenceEpoch >= 0) {
+            return String.format("%.2f", getHoursSinceLastPlayed());
+        }
+        return Long.toString(lastPlayedEpoch);
+    }
+
+    /**
+     * Gets the last played time exactly as it was received, before any formatting.
+     *
+     * @return The original last played epoch as a string.
+     */
+    public String getLastPlayedRaw() {
+        return Long.toString(lastPlayedEpoch);
+    }
+
+    /**
+     * Gets the last played time in seconds since the Unix epoch.
+     *
+     * @return The last played epoch.
+     */
+    public long getLastPlayedEpoch() {
         return lastPlayedEpoch;
     }
 
+    /**
+     * Gets the hours between the last played time and the time passed to
+     * {@link #EpochToHours(long)}.
+     *
+     * @return The hours since last played, or {@code NaN} if no time has been derived yet.
+     */
+    public double getHoursSinceLastPlayed() {
+        if (referenceEpoch < 0) {
+            return Double.NaN;
+        }
+        return (referenceEpoch - lastPlayedEpoch) / 3600.0;
+    }
+
     /**
      * Sets the last played time.
      *
-     * @param str The new last played time in epoch format.
+     * @param str The new last played time in epoch format, or "Never played".
      */
     public void setLPE(String str) {
-        lastPlayedEpoch = str;
+        if (NEVER_PLAYED.equals(str)) {
+            markNeverPlayed();
+        } else {
+            lastPlayedEpoch = parse(name, str);
+            referenceEpoch = -1;
+            neverPlayed = false;
+        }
+    }
+
+    /**
+     * Marks the game as never played.
+     */
+    public void markNeverPlayed() {
+        neverPlayed = true;
     }
-    
+
     /**
-     * Converts the last played epoch time to hours since last played.
-     * Updates {@code lastPlayedEpoch} with the formatted time difference in hours.
+     * Checks whether the game has been marked as never played.
+     *
+     * @return {@code true} if the game was never played.
+     */
+    public boolean isNeverPlayed() {
+        return neverPlayed;
+    }
+
+    /**
+     * Converts the last played epoch time to hours since last played, measured from now.
      */
     public void EpochToHours() {
-        long longEpoch = Long.parseLong(lastPlayedEpoch);
-        long currentEpoch = System.currentTimeMillis() / 1000;
-        double diff = (currentEpoch - longEpoch) / 3600.0;
-        lastPlayedEpoch = String.format("%.2f",diff); 
+        EpochToHours(System.currentTimeMillis() / 1000);
+    }
+
+    /**
+     * Converts the last played epoch time to hours since last played, measured from the
+     * given time. Only the reference time is stored; {@link #getLPE()} formats on demand.
+     *
+     * @param currentEpoch The time to measure from, in seconds since the Unix epoch.
+     */
+    public void EpochToHours(long currentEpoch) {
+        referenceEpoch = currentEpoch;
     }
 }
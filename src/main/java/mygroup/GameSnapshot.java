@@ -0,0 +1,198 @@
+package mygroup;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * A processed game list saved in a compact binary file, so that a run can be replayed
+ * without fetching and parsing JSON. The file holds, in order: the magic number
+ * {@code "GSS2"}, the reference time the hours since last played were measured from,
+ * the dictionary of distinct names (length-prefixed UTF-8), the dictionary of distinct
+ * Steam IDs, the rows as name id, Steam ID index, app id, minutes played and last
+ * played epoch, and a CRC32 of everything before it. All numbers except the magic
+ * number and the checksum are unsigned LEB128 varints, so a typical row takes 9 to 11
+ * bytes. Files in the earlier {@code "GSS1"} format, without Steam IDs and app ids,
+ * can still be read.
+ *
+ * @param referenceEpoch The time the hours since last played are measured from, in
+ *                       seconds since the Unix epoch.
+ * @param table          The games.
+ */
+public record GameSnapshot(long referenceEpoch, GameTable table) {
+    private static final int MAGIC_V1 = 0x47535331; // "GSS1"
+    private static final int MAGIC = 0x47535332; // "GSS2"
+
+    /**
+     * Writes the snapshot to a temporary file and moves it over the target, so an
+     * interrupted write never leaves a truncated snapshot behind.
+     *
+     * @param file The snapshot file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(Path file) throws IOException {
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        CRC32 crc = new CRC32();
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+            OutputStream body = new BufferedOutputStream(new CheckedOutputStream(out, crc), 1 << 16);
+            writeInt(body, MAGIC);
+            writeVarLong(body, referenceEpoch);
+            writeVarLong(body, table.dictionarySize());
+            for (int id = 0; id < table.dictionarySize(); id++) {
+                byte[] name = table.dictionaryName(id).getBytes(StandardCharsets.UTF_8);
+                writeVarLong(body, name.length);
+                body.write(name);
+            }
+            Map<Long,Integer> steamIds = new LinkedHashMap<Long,Integer>();
+            for (int row = 0; row < table.size(); row++) {
+                steamIds.putIfAbsent(table.steamId(row), steamIds.size());
+            }
+            writeVarLong(body, steamIds.size());
+            for (long steamId : steamIds.keySet()) {
+                writeVarLong(body, steamId);
+            }
+            writeVarLong(body, table.size());
+            for (int row = 0; row < table.size(); row++) {
+                writeVarLong(body, table.nameId(row));
+                writeVarLong(body, steamIds.get(table.steamId(row)));
+                writeVarLong(body, table.appId(row));
+                writeVarLong(body, table.minutesPlayed(row));
+                writeVarLong(body, table.lastPlayedEpoch(row));
+            }
+            body.flush();
+            writeInt(out, (int) crc.getValue());
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Reads a snapshot through a memory-mapped view of the file. The checksum is
+     * verified before anything is decoded.
+     *
+     * @param file The snapshot file.
+     * @return The snapshot.
+     * @throws IOException If the file cannot be read, is not a snapshot or is damaged.
+     */
+    public static GameSnapshot read(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        int end = buffer.limit() - 4;
+        int magic = end < 4 ? 0 : buffer.getInt(0);
+        if (magic != MAGIC && magic != MAGIC_V1) {
+            throw new IOException("Unrecognized snapshot file: " + file);
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, end));
+        if ((int) crc.getValue() != buffer.getInt(end)) {
+            throw new IOException("Snapshot checksum mismatch: " + file);
+        }
+
+        ByteBuffer in = buffer.slice(4, end - 4);
+        long referenceEpoch = readVarLong(in);
+        int dictionarySize = readCount(in);
+        String[] names = new String[dictionarySize];
+        for (int id = 0; id < dictionarySize; id++) {
+            int length = readCount(in);
+            byte[] name = new byte[length];
+            in.get(name);
+            names[id] = new String(name, StandardCharsets.UTF_8);
+        }
+        long[] steamIds = {0};
+        if (magic == MAGIC) {
+            steamIds = new long[readCount(in)];
+            for (int i = 0; i < steamIds.length; i++) {
+                steamIds[i] = readVarLong(in);
+            }
+        }
+        int rows = readCount(in);
+        GameTable table = new GameTable(rows);
+        for (int row = 0; row < rows; row++) {
+            int nameId = readIndex(in, dictionarySize, row);
+            long steamId = 0;
+            int appId = 0;
+            if (magic == MAGIC) {
+                steamId = steamIds[readIndex(in, steamIds.length, row)];
+                appId = Math.toIntExact(readVarLong(in));
+            }
+            table.add(steamId, appId, names[nameId], Math.toIntExact(readVarLong(in)), readVarLong(in));
+        }
+        if (in.hasRemaining()) {
+            throw new IOException("Corrupt snapshot, trailing data");
+        }
+        return new GameSnapshot(referenceEpoch, table);
+    }
+
+    /**
+     * Creates the games of the snapshot, with their hours since last played measured
+     * from the snapshot's reference time as in the run that wrote it.
+     *
+     * @return The games in their original order.
+     */
+    public List<Game> toGames() {
+        List<Game> games = table.toGames();
+        for (Game game : games) {
+            game.EpochToHours(referenceEpoch);
+        }
+        return games;
+    }
+
+    private static void writeInt(OutputStream out, int value) throws IOException {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeVarLong(OutputStream out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long readVarLong(ByteBuffer in) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (!in.hasRemaining()) {
+                throw new IOException("Corrupt snapshot, truncated number");
+            }
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IOException("Corrupt snapshot, number too long");
+    }
+
+    private static int readIndex(ByteBuffer in, int size, int row) throws IOException {
+        long index = readVarLong(in);
+        if (index < 0 || index >= size) {
+            throw new IOException("Corrupt snapshot, bad dictionary index in row " + row);
+        }
+        return (int) index;
+    }
+
+    private static int readCount(ByteBuffer in) throws IOException {
+        long count = readVarLong(in);
+        if (count < 0 || count > in.remaining()) {
+            throw new IOException("Corrupt snapshot, bad length " + count);
+        }
+        return (int) count;
+    }
+}
@@ -0,0 +1,227 @@
+package mygroup;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A column-oriented store of games for very large libraries. Each row is a name id,
+ * minutes played, last played epoch, owning Steam ID and app id held in primitive
+ * arrays, and every distinct name is stored once in a dictionary, so a row costs
+ * 28 bytes instead of a {@code Game} object with its own strings.
+ */
+public class GameTable {
+    private static final int INITIAL_CAPACITY = 64;
+    private final Map<String,Integer> dictionary;
+    private String[] names;
+    private int nameCount;
+    private int[] nameIds;
+    private int[] minutes;
+    private long[] lastPlayed;
+    private long[] steamIds;
+    private int[] appIds;
+    private int size;
+
+    /**
+     * Constructs an empty table.
+     */
+    public GameTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty table sized for the given number of rows.
+     *
+     * @param capacity The expected number of rows.
+     */
+    public GameTable(int capacity) {
+        int initial = Math.max(capacity, 1);
+        dictionary = new HashMap<String,Integer>();
+        names = new String[initial];
+        nameIds = new int[initial];
+        minutes = new int[initial];
+        lastPlayed = new long[initial];
+        steamIds = new long[initial];
+        appIds = new int[initial];
+    }
+
+    /**
+     * Builds a table holding the same games, in the same order, as the list.
+     *
+     * @param games The games to copy.
+     * @return The new table.
+     */
+    public static GameTable of(List<Game> games) {
+        GameTable table = new GameTable(games.size());
+        for (Game game : games) {
+            table.add(game.getSteamId(), game.getAppId(), game.getName(),
+                game.getMinutesPlayed(), game.getLastPlayedEpoch());
+        }
+        return table;
+    }
+
+    /**
+     * Appends a row.
+     *
+     * @param name            The game name.
+     * @param minutesPlayed   The total minutes played.
+     * @param lastPlayedEpoch The last played time in seconds since the Unix epoch.
+     * @return The index of the new row.
+     */
+    public int add(String name, int minutesPlayed, long lastPlayedEpoch) {
+        return add(0, 0, name, minutesPlayed, lastPlayedEpoch);
+    }
+
+    /**
+     * Appends a row owned by an account.
+     *
+     * @param steamId         The Steam ID of the owning account, or 0 if unknown.
+     * @param appId           The Steam app id, or 0 if unknown.
+     * @param name            The game name.
+     * @param minutesPlayed   The total minutes played.
+     * @param lastPlayedEpoch The last played time in seconds since the Unix epoch.
+     * @return The index of the new row.
+     */
+    public int add(long steamId, int appId, String name, int minutesPlayed, long lastPlayedEpoch) {
+        if (size == nameIds.length) {
+            int capacity = size * 2;
+            nameIds = Arrays.copyOf(nameIds, capacity);
+            minutes = Arrays.copyOf(minutes, capacity);
+            lastPlayed = Arrays.copyOf(lastPlayed, capacity);
+            steamIds = Arrays.copyOf(steamIds, capacity);
+            appIds = Arrays.copyOf(appIds, capacity);
+        }
+        nameIds[size] = intern(name);
+        minutes[size] = minutesPlayed;
+        lastPlayed[size] = lastPlayedEpoch;
+        steamIds[size] = steamId;
+        appIds[size] = appId;
+        return size++;
+    }
+
+    private int intern(String name) {
+        Integer id = dictionary.get(name);
+        if (id != null) {
+            return id;
+        }
+        if (nameCount == names.length) {
+            names = Arrays.copyOf(names, nameCount * 2);
+        }
+        names[nameCount] = name;
+        dictionary.put(name, nameCount);
+        return nameCount++;
+    }
+
+    /**
+     * Gets the number of rows.
+     *
+     * @return The row count.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Gets the number of distinct names.
+     *
+     * @return The dictionary size.
+     */
+    public int dictionarySize() {
+        return nameCount;
+    }
+
+    /**
+     * Gets a name from the dictionary.
+     *
+     * @param nameId The dictionary id.
+     * @return The name.
+     */
+    public String dictionaryName(int nameId) {
+        return names[Objects.checkIndex(nameId, nameCount)];
+    }
+
+    /**
+     * Gets the dictionary id of a row's name.
+     *
+     * @param row The row index.
+     * @return The name id.
+     */
+    public int nameId(int row) {
+        return nameIds[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Gets the name of a row.
+     *
+     * @param row The row index.
+     * @return The game name.
+     */
+    public String name(int row) {
+        return names[nameId(row)];
+    }
+
+    /**
+     * Gets the minutes played of a row.
+     *
+     * @param row The row index.
+     * @return The minutes played.
+     */
+    public int minutesPlayed(int row) {
+        return minutes[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Gets the last played epoch of a row.
+     *
+     * @param row The row index.
+     * @return The last played time in seconds since the Unix epoch.
+     */
+    public long lastPlayedEpoch(int row) {
+        return lastPlayed[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Gets the Steam ID of the account owning a row.
+     *
+     * @param row The row index.
+     * @return The Steam ID, or 0 if unknown.
+     */
+    public long steamId(int row) {
+        return steamIds[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Gets the app id of a row.
+     *
+     * @param row The row index.
+     * @return The app id, or 0 if unknown.
+     */
+    public int appId(int row) {
+        return appIds[Objects.checkIndex(row, size)];
+    }
+
+    /**
+     * Creates a {@code Game} for a row.
+     *
+     * @param row The row index.
+     * @return A new game with the row's values.
+     */
+    public Game toGame(int row) {
+        return new Game(steamId(row), appId(row), name(row), minutesPlayed(row), lastPlayedEpoch(row));
+    }
+
+    /**
+     * Creates a {@code Game} for every row, in row order.
+     *
+     * @return The games.
+     */
+    public List<Game> toGames() {
+        List<Game> games = new ArrayList<Game>(size);
+        for (int row = 0; row < size; row++) {
+            games.add(toGame(row));
+        }
+        return games;
+    }
+}
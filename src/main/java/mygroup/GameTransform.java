@@ -0,0 +1,157 @@
+package mygroup;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import com.fasterxml.jackson.databind.JsonNode;
+
+/**
+ * The stage between parsing and writing. It turns the elements of a game array into
+ * {@code Game} objects, derives their hours since last played and drops the games that
+ * were never played, in a single pass over the input. Every game of one run is
+ * measured from the same reference time. Inputs of at least the parallel threshold are
+ * transformed on the common fork-join pool; the result is the same list, in the same
+ * order, as a sequential pass.
+ */
+public class GameTransform {
+    private final long currentEpoch;
+    private final int parallelThreshold;
+
+    /**
+     * Constructs the stage. The parallel threshold is read from the
+     * {@code transform.parallelThreshold} setting (default 100000 games).
+     *
+     * @param currentEpoch The time to measure from, in seconds since the Unix epoch.
+     */
+    public GameTransform(long currentEpoch) {
+        this(currentEpoch, Settings.getInt("transform.parallelThreshold", 100_000));
+    }
+
+    /**
+     * Constructs the stage.
+     *
+     * @param currentEpoch      The time to measure from, in seconds since the Unix epoch.
+     * @param parallelThreshold The input size from which the stage runs in parallel.
+     */
+    public GameTransform(long currentEpoch, int parallelThreshold) {
+        if (parallelThreshold < 1) {
+            throw new IllegalArgumentException("Parallel threshold must be at least 1");
+        }
+        this.currentEpoch = currentEpoch;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Gets the time the hours since last played are measured from.
+     *
+     * @return The reference time in seconds since the Unix epoch.
+     */
+    public long currentEpoch() {
+        return currentEpoch;
+    }
+
+    /**
+     * Derives the hours since last played of one game. A game with no minutes played
+     * is marked as never played instead.
+     *
+     * @param game The game.
+     * @return {@code true} if the game was played and is kept.
+     */
+    public boolean test(Game game) {
+        if (game.getMinutesPlayed() == 0) {
+            game.markNeverPlayed();
+            return false;
+        }
+        game.EpochToHours(currentEpoch);
+        // a last played time of "Never played" marks the game even if it has minutes
+        return !game.isNeverPlayed();
+    }
+
+    /**
+     * Derives the hours since last played of parsed games and keeps those that were played.
+     *
+     * @param games The games.
+     * @return The played games in input order.
+     */
+    public List<Game> apply(List<Game> games) {
+        if (games.size() >= parallelThreshold) {
+            return games.parallelStream().filter(this::test).collect(Collectors.toList());
+        }
+        List<Game> kept = new ArrayList<Game>(games.size());
+        for (Game game : games) {
+            if (test(game)) {
+                kept.add(game);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Builds the games of a JSON array, derives their hours since last played and keeps
+     * those that were played, in one pass.
+     *
+     * @param array    The game array; anything else holds no games.
+     * @param jsonKeys The keys holding the name, minutes played and last played epoch,
+     *                 optionally followed by the key holding the app id.
+     * @return The played games in array order.
+     */
+    public List<Game> extract(JsonNode array, String[] jsonKeys) {
+        checkKeys(jsonKeys);
+        if (!array.isArray()) {
+            return new ArrayList<Game>();
+        }
+        int size = array.size();
+        if (size >= parallelThreshold) {
+            return IntStream.range(0, size).parallel()
+                .mapToObj(i -> toGame(array.get(i), jsonKeys))
+                .filter(this::test)
+                .collect(Collectors.toList());
+        }
+        List<Game> kept = new ArrayList<Game>(size);
+        for (JsonNode node : array) {
+            Game game = toGame(node, jsonKeys);
+            if (test(game)) {
+                kept.add(game);
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Builds the games of a JSON array without transforming them.
+     *
+     * @param array    The game array; anything else holds no games.
+     * @param jsonKeys The keys holding the name, minutes played and last played epoch,
+     *                 optionally followed by the key holding the app id.
+     * @return Every game in array order.
+     */
+    public static List<Game> extractAll(JsonNode array, String[] jsonKeys) {
+        checkKeys(jsonKeys);
+        List<Game> games = new ArrayList<Game>(array.size());
+        if (array.isArray()) {
+            for (JsonNode node : array) {
+                games.add(toGame(node, jsonKeys));
+            }
+        }
+        return games;
+    }
+
+    private static void checkKeys(String[] jsonKeys) {
+        if (jsonKeys.length != 3 && jsonKeys.length != 4) {
+            throw new IllegalArgumentException("Expected three or four JSON keys (name, minutes played, last played, app id)");
+        }
+    }
+
+    /**
+     * Builds a game from the text of its fields. A missing field, or an element that is
+     * not an object, reads as an empty value.
+     */
+    private static Game toGame(JsonNode node, String[] jsonKeys) {
+        String name = node.path(jsonKeys[0]).asText();
+        String minutes = node.path(jsonKeys[1]).asText();
+        String lastPlayed = node.path(jsonKeys[2]).asText();
+        return jsonKeys.length == 4
+            ? new Game(name, minutes, lastPlayed, node.path(jsonKeys[3]).asText())
+            : new Game(name, minutes, lastPlayed);
+    }
+}
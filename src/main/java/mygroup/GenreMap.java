@@ -1,9 +1,17 @@
 package mygroup;
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Scanner;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.logging.Level;
 import java.util.logging.Logger;
 
 
@@ -14,50 +22,186 @@ import java.util.logging.Logger;
 public class GenreMap {
     private Map<String,String> myMap;
     private List<Game> gameList;
+    private final boolean normalizeNames;
+    private Map<String,String> index;
+    private Map<String,String> normalizedIndex;
     private static final Logger logger = AppLogger.get();
 
     /**
-     * Constructs a GenreMap instance.
+     * Constructs a GenreMap instance. Name normalization is enabled by the
+     * {@code genres.normalize} setting.
      *
      * @param gameList A list of games for which genres will be mapped.
      */
     public GenreMap(List<Game> gameList) {
+        this(gameList, Settings.getBoolean("genres.normalize", false));
+    }
+
+    /**
+     * Constructs a GenreMap instance.
+     *
+     * @param gameList       A list of games for which genres will be mapped.
+     * @param normalizeNames Whether a genre line that does not match a game name exactly
+     *                       may still match it ignoring case and punctuation.
+     */
+    public GenreMap(List<Game> gameList, boolean normalizeNames) {
         myMap = new LinkedHashMap<String,String>();
         this.gameList = gameList;
+        this.normalizeNames = normalizeNames;
         
     }
 
     /**
-     * Loads game genre mappings from a resource file named "game_genres.txt".
+     * Loads game genre mappings from a resource file named "game_genres.txt", or from
+     * the file named by the {@code genres.file} setting.
      * The file should contain lines formatted as "gameName%genre".
-     * Only games that exist in the provided game list will be added to the map.
+     * Only games that exist in the provided game list will be added to the map;
+     * the first genre listed for a game wins.
+     * The game names are indexed once up front, so each line costs a single hash
+     * lookup regardless of the size of the game list.
      */
     public void addFromResource() {
-        InputStream inputstream = Client.class.getClassLoader().getResourceAsStream("game_genres.txt");
+        InputStream inputstream = Settings.openFileOrResource("genres.file", "game_genres.txt");
         if (inputstream == null) {
-            throw new IllegalStateException("Error loading in game_genres.txt from resources");
+            throw new IllegalStateException("game_genres.txt not found: set genres.file or add it to the resources");
             
         }
-        try (Scanner scanner = new Scanner(inputstream)) {
-            while (scanner.hasNextLine()) {
-                String line = scanner.nextLine();
-                String[] splitted = line.split("%");
-                if(splitted.length != 2) {
-                    throw new IllegalArgumentException("Malformed line in game_genres.txt");
+        addFrom(inputstream);
+    }
+
+    /**
+     * Loads game genre mappings in the game_genres.txt format from a stream.
+     *
+     * @param inputstream The genre lines. The stream is closed when reading ends.
+     */
+    void addFrom(InputStream inputstream) {
+        Set<String> names = new HashSet<String>();
+        Map<String,String> normalized = normalizeNames ? new HashMap<String,String>() : null;
+        for (Game game : gameList) {
+            names.add(game.getName());
+            if (normalized != null) {
+                normalized.putIfAbsent(normalize(game.getName()), game.getName());
+            }
+        }
+
+        readLines(inputstream, (name, genre) -> {
+            String gameName = names.contains(name) ? name
+                : normalized != null ? normalized.get(normalize(name)) : null;
+            if (gameName != null) {
+                myMap.putIfAbsent(gameName, genre);
+            }
+        });
+    }
+
+    /**
+     * Reads "game_genres.txt" once into an index of every listed name, so that
+     * {@link #resolve()} can map a changing game list without reading the file again.
+     * Long-running processes use this instead of {@link #addFromResource()}.
+     */
+    public void loadIndex() {
+        InputStream inputstream = Settings.openFileOrResource("genres.file", "game_genres.txt");
+        if (inputstream == null) {
+            throw new IllegalStateException("game_genres.txt not found: set genres.file or add it to the resources");
+        }
+        loadIndex(inputstream);
+    }
+
+    /**
+     * Reads genre lines in the game_genres.txt format from a stream into the index.
+     *
+     * @param inputstream The genre lines. The stream is closed when reading ends.
+     */
+    void loadIndex(InputStream inputstream) {
+        Map<String,String> exact = new HashMap<String,String>();
+        Map<String,String> normalized = normalizeNames ? new HashMap<String,String>() : null;
+        readLines(inputstream, (name, genre) -> {
+            exact.putIfAbsent(name, genre);
+            if (normalized != null) {
+                normalized.putIfAbsent(normalize(name), genre);
+            }
+        });
+        index = exact;
+        normalizedIndex = normalized;
+        logger.info("Indexed " + index.size() + " genre entries");
+    }
+
+    /**
+     * Rebuilds the mapping for the current contents of the game list from the index,
+     * loading the index first if needed. Each game costs one hash lookup, or two when
+     * name normalization is enabled and the exact name is not listed.
+     */
+    public void resolve() {
+        resolve(gameList);
+    }
+
+    /**
+     * Replaces the mapping with the genres of the given games, so that a batch of games
+     * can be mapped without holding the whole library.
+     *
+     * @param games The games to map.
+     */
+    public void resolve(List<Game> games) {
+        if (index == null) {
+            loadIndex();
+        }
+        myMap.clear();
+        for (Game game : games) {
+            String genre = index.get(game.getName());
+            if (genre == null && normalizedIndex != null) {
+                genre = normalizedIndex.get(normalize(game.getName()));
+            }
+            if (genre != null) {
+                myMap.putIfAbsent(game.getName(), genre);
+            }
+        }
+    }
+
+    /**
+     * Parses genre lines and passes each name and genre to the consumer.
+     *
+     * @param inputstream The genre lines. The stream is closed when reading ends.
+     * @param consumer    Receives the name and genre of every line, in file order.
+     */
+    private static void readLines(InputStream inputstream, BiConsumer<String,String> consumer) {
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(inputstream, StandardCharsets.UTF_8), 1 << 16)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // same rules as line.split("%") yielding exactly two parts:
+                // trailing separators are ignored and exactly one must remain
+                int end = line.length();
+                while (end > 0 && line.charAt(end - 1) == '%') {
+                    end--;
                 }
-                String name = splitted[0];
-                String genre = splitted[1];
-                for (Game game : gameList) {
-                    if(name.equals(game.getName()) && !myMap.containsKey(name)) {
-                        myMap.put(name,genre);
-                    }
+                int separator = line.indexOf('%');
+                if (separator < 0 || separator >= end || line.lastIndexOf('%', end - 1) != separator) {
+                    throw new IllegalArgumentException("Malformed line in game_genres.txt");
                 }
-
-                
+                consumer.accept(line.substring(0, separator), line.substring(separator + 1, end));
             }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error reading game_genres.txt", e);
+            throw new RuntimeException("Error reading game_genres.txt");
         }
-       
+    }
 
+    /**
+     * Reduces a game name to its lower-case letters and digits, so that for example
+     * "DARK SOULS™ III" and "Dark Souls III" compare equal.
+     *
+     * @param name The name to normalize.
+     * @return The normalized name.
+     */
+    static String normalize(String name) {
+        StringBuilder sb = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); ) {
+            int cp = name.codePointAt(i);
+            if (Character.isLetterOrDigit(cp)) {
+                sb.appendCodePoint(Character.toLowerCase(cp));
+            }
+            i += Character.charCount(cp);
+        }
+        return sb.toString();
     }
     /**
      * Retrieves the mapping of game names to their genres.
@@ -67,10 +211,21 @@ public class GenreMap {
     public Map<String,String> getMap() {
         return myMap;
     }
+    /**
+     * Gets the genre stored for a game, as it is written to the database.
+     *
+     * @param name The game name.
+     * @return The genre without surrounding whitespace, or "Unknown" if none is mapped.
+     */
+    public String genreOf(String name) {
+        String genre = myMap.get(name);
+        return genre == null ? "Unknown" : genre.strip();
+    }
+
     /**
      * Prints all stored game-genre mappings to the console.
      */
     public void printMap() {
-        myMap.forEach((key,value) -> logger.info(key + " " + value));
+        myMap.forEach((key,value) -> logger.info(() -> key + " " + value));
     }
 }
@@ -0,0 +1,60 @@
+package mygroup;
+import java.io.IOException;
+
+/**
+ * Signals that a request was answered with an unexpected HTTP status code. It carries
+ * the code and any {@code Retry-After} delay, so callers can decide whether to retry.
+ */
+public class HttpStatusException extends IOException {
+    private static final long serialVersionUID = 1L;
+    private final int statusCode;
+    private final long retryAfterMillis;
+
+    /**
+     * Constructs the exception.
+     *
+     * @param statusCode       The HTTP status code.
+     * @param retryAfterMillis The delay requested by a {@code Retry-After} header, or -1.
+     */
+    public HttpStatusException(int statusCode, long retryAfterMillis) {
+        super("Failed to fetch JSON during HTTP request with status code: " + statusCode);
+        this.statusCode = statusCode;
+        this.retryAfterMillis = retryAfterMillis;
+    }
+
+    /**
+     * Gets the HTTP status code.
+     *
+     * @return The status code.
+     */
+    public int getStatusCode() {
+        return statusCode;
+    }
+
+    /**
+     * Gets the delay the server asked for before the next request.
+     *
+     * @return The delay in milliseconds, or -1 if the server did not ask for one.
+     */
+    public long getRetryAfterMillis() {
+        return retryAfterMillis;
+    }
+
+    /**
+     * Reads a {@code Retry-After} header given in seconds. The HTTP-date form is not
+     * supported and counts as absent.
+     *
+     * @param header The header value, or {@code null}.
+     * @return The delay in milliseconds, or -1.
+     */
+    static long parseRetryAfter(String header) {
+        if (header == null) {
+            return -1;
+        }
+        try {
+            return Math.max(0, Long.parseLong(header.strip())) * 1000;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
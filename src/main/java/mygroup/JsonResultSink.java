@@ -0,0 +1,88 @@
+package mygroup;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+
+/**
+ * A {@link ResultSink} that writes one JSON document with an array of row objects
+ * per report, for example {@code {"top_genres":[{"genres":"RPG","minutes_played":120}]}}.
+ * Rows go straight to a {@link JsonGenerator}, so memory use does not depend on the
+ * number of rows.
+ */
+public class JsonResultSink implements ResultSink {
+    private final JsonGenerator generator;
+
+    /**
+     * Opens a sink writing to a file.
+     *
+     * @param file The output file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public JsonResultSink(File file) throws IOException {
+        this(new JsonFactory().createGenerator(file, JsonEncoding.UTF8));
+    }
+
+    /**
+     * Opens a sink writing to a stream. The stream is closed with the sink.
+     *
+     * @param out The output stream.
+     * @throws IOException If the generator cannot be created.
+     */
+    public JsonResultSink(OutputStream out) throws IOException {
+        this(new JsonFactory().createGenerator(out, JsonEncoding.UTF8));
+    }
+
+    private JsonResultSink(JsonGenerator generator) throws IOException {
+        this.generator = generator;
+        generator.writeStartObject();
+    }
+
+    @Override
+    public void beginSection(String name) throws IOException {
+        generator.writeArrayFieldStart(name);
+    }
+
+    @Override
+    public void beginRow() throws IOException {
+        generator.writeStartObject();
+    }
+
+    @Override
+    public void writeString(String column, String value) throws IOException {
+        generator.writeStringField(column, value);
+    }
+
+    @Override
+    public void writeNumber(String column, long value) throws IOException {
+        generator.writeNumberField(column, value);
+    }
+
+    @Override
+    public void writeNumber(String column, double value) throws IOException {
+        generator.writeNumberField(column, value);
+    }
+
+    @Override
+    public void writeNull(String column) throws IOException {
+        generator.writeNullField(column);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        generator.writeEndObject();
+    }
+
+    @Override
+    public void endSection() throws IOException {
+        generator.writeEndArray();
+    }
+
+    @Override
+    public void close() throws IOException {
+        generator.writeEndObject();
+        generator.close();
+    }
+}
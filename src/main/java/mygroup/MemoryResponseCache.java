@@ -0,0 +1,38 @@
+package mygroup;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An in-memory {@link ResponseCache} that holds at most a fixed number of entries
+ * and evicts the least recently used one when full.
+ */
+public class MemoryResponseCache implements ResponseCache {
+    private final Map<String,CachedResponse> entries;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maxEntries The maximum number of responses kept in memory.
+     */
+    public MemoryResponseCache(int maxEntries) {
+        if (maxEntries < 1) {
+            throw new IllegalArgumentException("Cache size must be at least 1");
+        }
+        this.entries = new LinkedHashMap<String,CachedResponse>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String,CachedResponse> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    @Override
+    public synchronized CachedResponse get(String url) {
+        return entries.get(url);
+    }
+
+    @Override
+    public synchronized void put(String url, CachedResponse response) {
+        entries.put(url, response);
+    }
+}
@@ -0,0 +1,230 @@
+package mygroup;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Provides a single, process-wide registry of pipeline metrics: a latency histogram
+ * per stage (fetch, parse, format, filter, genres, insert, select) and named counters
+ * for bytes, rows and errors. Recording is lock-free, so it is safe from the fetch
+ * threads. The registry can be exported as JSON or in the Prometheus text format.
+ */
+public final class Metrics {
+    /** Histogram bucket upper bounds in seconds. */
+    private static final double[] BUCKETS =
+        {0.0005, 0.001, 0.002, 0.005, 0.01, 0.02, 0.05, 0.1, 0.2, 0.5, 1, 2, 5, 10, 30, 60};
+    private static final ConcurrentMap<String,Timer> TIMERS = new ConcurrentHashMap<String,Timer>();
+    private static final ConcurrentMap<String,LongAdder> COUNTERS = new ConcurrentHashMap<String,LongAdder>();
+    private static final Logger logger = AppLogger.get();
+
+    private Metrics() {}
+
+    /**
+     * A latency histogram for one pipeline stage.
+     */
+    public static final class Timer {
+        private final LongAdder[] buckets = new LongAdder[BUCKETS.length + 1];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sumNanos = new LongAdder();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+
+        private Timer() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records one observation.
+         *
+         * @param nanos The elapsed time in nanoseconds.
+         */
+        public void record(long nanos) {
+            double seconds = nanos / 1e9;
+            int i = 0;
+            while (i < BUCKETS.length && seconds > BUCKETS[i]) {
+                i++;
+            }
+            buckets[i].increment();
+            count.increment();
+            sumNanos.add(nanos);
+            maxNanos.accumulate(nanos);
+        }
+
+        /**
+         * Records the time elapsed since {@code startNanos}.
+         *
+         * @param startNanos A value previously obtained from {@link System#nanoTime()}.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        /**
+         * Estimates a quantile from the histogram by interpolating linearly inside the
+         * bucket that holds it. Observations above the last bucket bound are assumed to
+         * lie between that bound and the maximum.
+         *
+         * @param q The quantile, between 0 and 1.
+         * @return The estimated latency in seconds, or 0 without observations.
+         */
+        public double quantileSeconds(double q) {
+            long total = count.sum();
+            if (total == 0) {
+                return 0;
+            }
+            double rank = q * total;
+            long cumulative = 0;
+            for (int i = 0; i < buckets.length; i++) {
+                long inBucket = buckets[i].sum();
+                if (inBucket > 0 && cumulative + inBucket >= rank) {
+                    double lower = i == 0 ? 0 : BUCKETS[i - 1];
+                    double upper = Math.min(i < BUCKETS.length ? BUCKETS[i] : Double.MAX_VALUE, maxNanos.get() / 1e9);
+                    return lower + (upper - lower) * (rank - cumulative) / inBucket;
+                }
+                cumulative += inBucket;
+            }
+            return maxNanos.get() / 1e9;
+        }
+    }
+
+    /**
+     * Gets the timer for a stage, creating it on first use.
+     *
+     * @param stage The stage name.
+     * @return The stage's timer.
+     */
+    public static Timer timer(String stage) {
+        return TIMERS.computeIfAbsent(stage, k -> new Timer());
+    }
+
+    /**
+     * Runs a stage and records its duration, also when it throws.
+     *
+     * @param stage The stage name.
+     * @param task  The work to time.
+     */
+    public static void time(String stage, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            timer(stage).recordSince(start);
+        }
+    }
+
+    /**
+     * Adds to a named counter, such as {@code fetch_bytes} or {@code insert_errors}.
+     *
+     * @param name  The counter name.
+     * @param delta The amount to add.
+     */
+    public static void count(String name, long delta) {
+        COUNTERS.computeIfAbsent(name, k -> new LongAdder()).add(delta);
+    }
+
+    /**
+     * Clears all metrics.
+     */
+    public static void reset() {
+        TIMERS.clear();
+        COUNTERS.clear();
+    }
+
+    /**
+     * Renders all metrics in the Prometheus text exposition format.
+     *
+     * @return The exposition text.
+     */
+    public static String toPrometheus() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("# TYPE gamemanager_stage_duration_seconds histogram\n");
+        for (Map.Entry<String,Timer> entry : TIMERS.entrySet()) {
+            String stage = entry.getKey();
+            Timer timer = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i < timer.buckets.length; i++) {
+                cumulative += timer.buckets[i].sum();
+                String le = i < BUCKETS.length ? Double.toString(BUCKETS[i]) : "+Inf";
+                sb.append("gamemanager_stage_duration_seconds_bucket{stage=\"").append(stage)
+                    .append("\",le=\"").append(le).append("\"} ").append(cumulative).append('\n');
+            }
+            sb.append("gamemanager_stage_duration_seconds_sum{stage=\"").append(stage).append("\"} ")
+                .append(timer.sumNanos.sum() / 1e9).append('\n');
+            sb.append("gamemanager_stage_duration_seconds_count{stage=\"").append(stage).append("\"} ")
+                .append(timer.count.sum()).append('\n');
+        }
+        for (Map.Entry<String,LongAdder> entry : COUNTERS.entrySet()) {
+            String name = "gamemanager_" + entry.getKey() + "_total";
+            sb.append("# TYPE ").append(name).append(" counter\n");
+            sb.append(name).append(' ').append(entry.getValue().sum()).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Builds a JSON-friendly snapshot of all metrics.
+     *
+     * @return Nested maps with a {@code stages} and a {@code counters} section.
+     */
+    public static Map<String,Object> snapshot() {
+        Map<String,Object> stages = new LinkedHashMap<String,Object>();
+        for (Map.Entry<String,Timer> entry : TIMERS.entrySet()) {
+            Timer timer = entry.getValue();
+            Map<String,Long> buckets = new LinkedHashMap<String,Long>();
+            long cumulative = 0;
+            for (int i = 0; i < timer.buckets.length; i++) {
+                cumulative += timer.buckets[i].sum();
+                buckets.put(i < BUCKETS.length ? Double.toString(BUCKETS[i]) : "+Inf", cumulative);
+            }
+            Map<String,Object> stage = new LinkedHashMap<String,Object>();
+            stage.put("count", timer.count.sum());
+            stage.put("sum_seconds", timer.sumNanos.sum() / 1e9);
+            stage.put("max_seconds", timer.maxNanos.get() / 1e9);
+            stage.put("p50_seconds", timer.quantileSeconds(0.5));
+            stage.put("p99_seconds", timer.quantileSeconds(0.99));
+            stage.put("buckets", buckets);
+            stages.put(entry.getKey(), stage);
+        }
+        Map<String,Long> counters = new LinkedHashMap<String,Long>();
+        COUNTERS.forEach((name, adder) -> counters.put(name, adder.sum()));
+        Map<String,Object> snapshot = new LinkedHashMap<String,Object>();
+        snapshot.put("stages", stages);
+        snapshot.put("counters", counters);
+        return snapshot;
+    }
+
+    /**
+     * Writes the metrics to the file named by the {@code metrics.file} setting, if any.
+     * Files ending in {@code .json} get JSON, anything else the Prometheus text format.
+     * A failure is logged rather than thrown, since metrics must not fail a run.
+     */
+    public static void exportIfConfigured() {
+        String file = Settings.get("metrics.file", null);
+        if (file == null) {
+            return;
+        }
+        try {
+            Path path = Path.of(file);
+            if (file.endsWith(".json")) {
+                new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(path.toFile(), snapshot());
+            } else {
+                Files.writeString(path, toPrometheus(), StandardCharsets.UTF_8);
+            }
+            logger.info("Metrics written to " + file);
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error writing metrics", e);
+            logger.warning("Could not write metrics to " + file);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package mygroup;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.logging.Logger;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the current {@link Metrics} over HTTP: {@code /metrics} in the Prometheus
+ * text format and {@code /metrics.json} as JSON. The server listens on the loopback
+ * interface unless another bind address is configured.
+ */
+public class MetricsServer {
+    private final HttpServer server;
+    private final ObjectMapper objectMapper;
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * Binds the server to a port. Call {@link #start()} to begin serving.
+     *
+     * @param bindAddress The address to listen on, such as {@code 127.0.0.1}, or
+     *                    {@code 0.0.0.0} for every interface.
+     * @param port        The port to listen on.
+     * @throws IOException If the port cannot be bound.
+     */
+    public MetricsServer(String bindAddress, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        objectMapper = new ObjectMapper();
+        server.createContext("/metrics", exchange ->
+            respond(exchange, "text/plain; version=0.0.4", Metrics.toPrometheus().getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/metrics.json", exchange ->
+            respond(exchange, "application/json", objectMapper.writeValueAsBytes(Metrics.snapshot())));
+    }
+
+    /**
+     * Starts a server on the port named by the {@code metrics.port} setting, if any,
+     * listening on {@code metrics.bindAddress} (default {@code 127.0.0.1}).
+     *
+     * @return The started server, or {@code null} when no port is configured.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static MetricsServer startIfConfigured() throws IOException {
+        int port = Settings.getInt("metrics.port", -1);
+        if (port < 0) {
+            return null;
+        }
+        MetricsServer metricsServer = new MetricsServer(Settings.get("metrics.bindAddress", "127.0.0.1"), port);
+        metricsServer.start();
+        return metricsServer;
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    public void start() {
+        server.start();
+        logger.info("Metrics available on " + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        server.stop(0);
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        if (!"GET".equals(exchange.getRequestMethod())) {
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return;
+        }
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package mygroup;
+import java.io.File;
+import java.io.IOException;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.util.MinimalPrettyPrinter;
+
+/**
+ * A {@link ResultSink} that writes newline-delimited JSON: one object per row, with
+ * the report name in a leading {@code report} field. Suited to large exports that
+ * are processed line by line.
+ */
+public class NdjsonResultSink implements ResultSink {
+    private final JsonGenerator generator;
+    private String section;
+    private boolean wroteRow;
+
+    /**
+     * Opens a sink writing to a file.
+     *
+     * @param file The output file.
+     * @throws IOException If the file cannot be opened.
+     */
+    public NdjsonResultSink(File file) throws IOException {
+        generator = new JsonFactory().createGenerator(file, JsonEncoding.UTF8);
+        generator.setPrettyPrinter(new MinimalPrettyPrinter("\n"));
+    }
+
+    @Override
+    public void beginSection(String name) {
+        section = name;
+    }
+
+    @Override
+    public void beginRow() throws IOException {
+        generator.writeStartObject();
+        generator.writeStringField("report", section);
+    }
+
+    @Override
+    public void writeString(String column, String value) throws IOException {
+        generator.writeStringField(column, value);
+    }
+
+    @Override
+    public void writeNumber(String column, long value) throws IOException {
+        generator.writeNumberField(column, value);
+    }
+
+    @Override
+    public void writeNumber(String column, double value) throws IOException {
+        generator.writeNumberField(column, value);
+    }
+
+    @Override
+    public void writeNull(String column) throws IOException {
+        generator.writeNullField(column);
+    }
+
+    @Override
+    public void endRow() throws IOException {
+        generator.writeEndObject();
+        wroteRow = true;
+    }
+
+    @Override
+    public void endSection() {
+        section = null;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (wroteRow) {
+            generator.writeRaw('\n');
+        }
+        generator.close();
+    }
+}
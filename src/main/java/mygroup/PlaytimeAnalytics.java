@@ -0,0 +1,192 @@
+package mygroup;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Computes the reports from {@code DatabaseManager} directly from the in-memory game
+ * list, without a database. Totals are built by hash aggregation and the top entries
+ * are picked with a bounded heap, so only K candidates are ever sorted. Inputs larger
+ * than the parallel threshold are aggregated on the common fork-join pool.
+ *
+ * <p>The results equal what the SQL queries return for a {@code games} table holding
+ * exactly this game list: a name that occurs more than once counts with its last
+ * value, as the upsert leaves it, and ties are ordered by key. Names and genres are
+ * compared ignoring case, as the tables' case-insensitive collation compares them, so
+ * names that differ only in case count as one, under the spelling seen first.
+ */
+public class PlaytimeAnalytics {
+    /** Number of genres in the top genres report, as in {@code LIMIT 5}. */
+    public static final int TOP_GENRES = 5;
+    /** Number of games in the top games report, as in {@code LIMIT 50}. */
+    public static final int TOP_GAMES = 50;
+
+    private final List<Game> gameList;
+    private final GenreMap genreMap;
+    private final int parallelThreshold;
+
+    /**
+     * A key with its total minutes played.
+     *
+     * @param key     The genre or game name.
+     * @param minutes The summed minutes played.
+     */
+    public record Total(String key, long minutes) {}
+
+    private static final Comparator<Total> RANKING =
+        Comparator.comparingLong(Total::minutes).reversed().thenComparing(Total::key, String.CASE_INSENSITIVE_ORDER);
+
+    /**
+     * Constructs the engine. The parallel threshold is read from the
+     * {@code analytics.parallelThreshold} setting (default 100000 games).
+     *
+     * @param gameList The games to analyse.
+     * @param genreMap The mapping of game names to genres.
+     */
+    public PlaytimeAnalytics(List<Game> gameList, GenreMap genreMap) {
+        this(gameList, genreMap, Settings.getInt("analytics.parallelThreshold", 100_000));
+    }
+
+    /**
+     * Constructs the engine.
+     *
+     * @param gameList          The games to analyse.
+     * @param genreMap          The mapping of game names to genres.
+     * @param parallelThreshold The game count from which aggregation runs in parallel.
+     */
+    public PlaytimeAnalytics(List<Game> gameList, GenreMap genreMap, int parallelThreshold) {
+        this.gameList = gameList;
+        this.genreMap = genreMap;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Writes both reports to a sink in the same sections and columns as the SQL reports
+     * in {@code DatabaseManager}: {@code top_genres} followed by {@code top_games}.
+     *
+     * @param sink The sink receiving the rows.
+     * @throws IOException If writing to the sink fails.
+     */
+    public void writeTo(ResultSink sink) throws IOException {
+        Map<String,Total> minutesByName = minutesByName();
+        writeSection(sink, "top_genres", "genres", topGenres(minutesByName));
+        writeSection(sink, "top_games", "name", topGames(minutesByName));
+    }
+
+    private static void writeSection(ResultSink sink, String section, String keyColumn, List<Total> totals) throws IOException {
+        sink.beginSection(section);
+        for (Total total : totals) {
+            sink.beginRow();
+            sink.writeString(keyColumn, total.key());
+            sink.writeNumber("minutes_played", total.minutes());
+            sink.endRow();
+        }
+        sink.endSection();
+    }
+
+    /**
+     * Computes the genres with the most minutes played.
+     *
+     * @return At most {@link #TOP_GENRES} totals, highest first.
+     */
+    public List<Total> topGenres() {
+        return topGenres(minutesByName());
+    }
+
+    /**
+     * Computes the games with the most minutes played.
+     *
+     * @return At most {@link #TOP_GAMES} totals, highest first.
+     */
+    public List<Total> topGames() {
+        return topGames(minutesByName());
+    }
+
+    private List<Total> topGenres(Map<String,Total> minutesByName) {
+        Map<String,Total> minutesByGenre = stream(minutesByName.values().stream(), minutesByName.size())
+            .map(total -> new Total(genreMap.genreOf(total.key()), total.minutes()))
+            .collect(Collectors.toMap(total -> fold(total.key()), total -> total,
+                (first, next) -> new Total(first.key(), first.minutes() + next.minutes()), HashMap::new));
+        return topK(minutesByGenre, TOP_GENRES);
+    }
+
+    private List<Total> topGames(Map<String,Total> minutesByName) {
+        return topK(minutesByName, TOP_GAMES);
+    }
+
+    /**
+     * Collapses the game list to one total per case-folded name, keeping the spelling
+     * of the first occurrence and the value of the last, as the upsert does. The names
+     * stay in the order of their first occurrence, so a genre is also spelled as first
+     * seen. The collector merges partial results in encounter order, so this also holds
+     * when it runs in parallel.
+     */
+    private Map<String,Total> minutesByName() {
+        return stream(gameList.stream(), gameList.size())
+            .collect(Collectors.toMap(game -> fold(game.getName()),
+                game -> new Total(game.getName(), game.getMinutesPlayed()),
+                (first, last) -> new Total(first.key(), last.minutes()), LinkedHashMap::new));
+    }
+
+    private List<Total> topK(Map<String,Total> totals, int k) {
+        TopK top = stream(totals.values().stream(), totals.size())
+            .collect(() -> new TopK(k), TopK::offer, TopK::addAll);
+        return top.sorted();
+    }
+
+    /**
+     * Folds the case of a key so that two keys are equal exactly when
+     * {@link String#CASE_INSENSITIVE_ORDER} compares them as equal.
+     */
+    private static String fold(String key) {
+        StringBuilder folded = new StringBuilder(key.length());
+        for (int i = 0; i < key.length(); i++) {
+            folded.append(Character.toLowerCase(Character.toUpperCase(key.charAt(i))));
+        }
+        return folded.toString();
+    }
+
+    private <T> Stream<T> stream(Stream<T> stream, int size) {
+        return size >= parallelThreshold ? stream.parallel() : stream;
+    }
+
+    /**
+     * A min-heap that keeps the K best totals seen so far.
+     */
+    private static final class TopK {
+        private final int k;
+        private final PriorityQueue<Total> heap;
+
+        TopK(int k) {
+            this.k = k;
+            this.heap = new PriorityQueue<Total>(k + 1, RANKING.reversed());
+        }
+
+        void offer(Total total) {
+            if (heap.size() < k) {
+                heap.add(total);
+            } else if (RANKING.compare(total, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(total);
+            }
+        }
+
+        void addAll(TopK other) {
+            other.heap.forEach(this::offer);
+        }
+
+        List<Total> sorted() {
+            List<Total> list = new ArrayList<Total>(heap);
+            Collections.sort(list, RANKING);
+            return list;
+        }
+    }
+}
@@ -0,0 +1,211 @@
+package mygroup;
+import java.sql.Connection;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Keeps the history of playtime that {@code games} and {@code user_games} overwrite.
+ * Every write that changes a game's minutes played appends the difference to
+ * {@code playtime_history}, and in the same transaction adds it to the game's genre in
+ * the {@code playtime_daily} and {@code playtime_weekly} rollups. Playtime is counted
+ * on the UTC day of the run that noticed it, and weeks start on Monday. The first time
+ * a game is written only sets its starting point, since nothing tells when its earlier
+ * playtime happened.
+ *
+ * <p>Trend reports read the rollups, which hold one row per genre and day or week, so
+ * they stay small however long the history runs. {@link #compact} enforces the
+ * retention: raw deltas and daily rows older than their retention are deleted, while
+ * weekly rows are kept.
+ */
+public class PlaytimeHistory {
+    /** Rows deleted per statement, so that compaction never holds locks for long. */
+    private static final int DELETE_CHUNK = 10_000;
+
+    private static final String APPEND =
+                            "INSERT INTO playtime_history (recorded_at, steam_id, app_id, name, genre, minutes_delta) " +
+                            "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final String ADD_DAILY =
+                            "INSERT INTO playtime_daily (played_on, steam_id, genre, minutes_played) " +
+                            "VALUES (?, ?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE " +
+                            "minutes_played = minutes_played + VALUES(minutes_played)";
+
+    private static final String ADD_WEEKLY =
+                            "INSERT INTO playtime_weekly (week_of, steam_id, genre, minutes_played) " +
+                            "VALUES (?, ?, ?, ?) " +
+                            "ON DUPLICATE KEY UPDATE " +
+                            "minutes_played = minutes_played + VALUES(minutes_played)";
+
+    private final int retentionDays;
+    private final int dailyRetentionDays;
+
+    /**
+     * A change in a game's minutes played between two writes.
+     *
+     * @param steamId The account, or 0 when the games are not stored per account.
+     * @param appId   The app id, or 0 if unknown.
+     * @param name    The game name.
+     * @param genre   The game's genre as written.
+     * @param minutes The minutes played since the previous write; negative when the
+     *                total went down.
+     */
+    public record Delta(long steamId, int appId, String name, String genre, long minutes) {}
+
+    /**
+     * The rollup row a delta is added to within one day or week.
+     */
+    private record RollupKey(long steamId, String genre) {}
+
+    private static final Comparator<RollupKey> ROLLUP_ORDER =
+        Comparator.comparingLong(RollupKey::steamId).thenComparing(RollupKey::genre);
+
+    /**
+     * Constructs a history that keeps raw deltas for {@code history.retentionDays}
+     * (default 30) and daily rollups for {@code history.dailyRetentionDays} (default 400).
+     */
+    public PlaytimeHistory() {
+        this(Settings.getInt("history.retentionDays", 30), Settings.getInt("history.dailyRetentionDays", 400));
+    }
+
+    /**
+     * Constructs a history.
+     *
+     * @param retentionDays      The days raw deltas are kept.
+     * @param dailyRetentionDays The days daily rollups are kept; weekly rollups are kept
+     *                           for good.
+     */
+    public PlaytimeHistory(int retentionDays, int dailyRetentionDays) {
+        if (retentionDays < 1 || dailyRetentionDays < 1) {
+            throw new IllegalArgumentException("History retention must be at least one day");
+        }
+        this.retentionDays = retentionDays;
+        this.dailyRetentionDays = dailyRetentionDays;
+    }
+
+    /**
+     * Appends the deltas and adds them to the rollups, inside the caller's transaction.
+     * Rollup rows are written in key order, so that concurrent writers take their locks
+     * in the same order.
+     *
+     * @param conn   The open database connection.
+     * @param deltas The changes to record; zero deltas are skipped.
+     * @param now    The time of the write.
+     * @throws SQLException If a statement fails.
+     */
+    public void append(Connection conn, List<Delta> deltas, Instant now) throws SQLException {
+        Map<RollupKey,Long> rollup = new TreeMap<RollupKey,Long>(ROLLUP_ORDER);
+        int appended = 0;
+        try (PreparedStatement append = conn.prepareStatement(APPEND)) {
+            Timestamp recordedAt = Timestamp.from(now);
+            for (Delta delta : deltas) {
+                if (delta.minutes() == 0) {
+                    continue;
+                }
+                append.setTimestamp(1, recordedAt);
+                append.setLong(2, delta.steamId());
+                append.setInt(3, delta.appId());
+                append.setString(4, delta.name());
+                append.setString(5, delta.genre());
+                append.setLong(6, delta.minutes());
+                append.addBatch();
+                appended++;
+                rollup.merge(new RollupKey(delta.steamId(), delta.genre()), delta.minutes(), Long::sum);
+            }
+            if (rollup.isEmpty()) {
+                return;
+            }
+            append.executeBatch();
+        }
+        LocalDate day = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        addToRollup(conn, ADD_DAILY, Date.valueOf(day), rollup);
+        addToRollup(conn, ADD_WEEKLY, Date.valueOf(day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))), rollup);
+        Metrics.count("history_deltas", appended);
+    }
+
+    private static void addToRollup(Connection conn, String sql, Date period, Map<RollupKey,Long> rollup) throws SQLException {
+        try (PreparedStatement add = conn.prepareStatement(sql)) {
+            for (Map.Entry<RollupKey,Long> entry : rollup.entrySet()) {
+                if (entry.getValue() != 0) {
+                    add.setDate(1, period);
+                    add.setLong(2, entry.getKey().steamId());
+                    add.setString(3, entry.getKey().genre());
+                    add.setLong(4, entry.getValue());
+                    add.addBatch();
+                }
+            }
+            add.executeBatch();
+        }
+    }
+
+    /**
+     * Deletes the raw deltas and daily rollups that have passed their retention, a
+     * chunk of rows per statement. The rollups already hold the deleted deltas, so no
+     * totals change.
+     *
+     * @param conn An open connection in autocommit mode.
+     * @param now  The current time.
+     * @return The number of rows deleted.
+     * @throws SQLException If a delete fails.
+     */
+    public int compact(Connection conn, Instant now) throws SQLException {
+        LocalDate today = LocalDate.ofInstant(now, ZoneOffset.UTC);
+        int deleted = deleteBefore(conn, "DELETE FROM playtime_history WHERE recorded_at < ? LIMIT " + DELETE_CHUNK,
+            Timestamp.from(now.minus(retentionDays, ChronoUnit.DAYS)));
+        deleted += deleteBefore(conn, "DELETE FROM playtime_daily WHERE played_on < ? LIMIT " + DELETE_CHUNK,
+            Date.valueOf(today.minusDays(dailyRetentionDays)));
+        Metrics.count("history_compacted", deleted);
+        return deleted;
+    }
+
+    private static int deleteBefore(Connection conn, String sql, Object cutoff) throws SQLException {
+        int total = 0;
+        try (PreparedStatement delete = conn.prepareStatement(sql)) {
+            delete.setObject(1, cutoff);
+            int deleted;
+            do {
+                deleted = delete.executeUpdate();
+                total += deleted;
+            } while (deleted == DELETE_CHUNK);
+        }
+        return total;
+    }
+
+    /**
+     * The trend report: minutes played per genre in each of the latest weeks with
+     * playtime, newest week first, each week named by the date of its Monday. It reads
+     * only the weekly rollup, summed over all accounts, so "hours per genre this week"
+     * is the first week's rows divided by 60.
+     *
+     * @param weeks The number of weeks in the report.
+     * @return The report query, named {@code genre_weekly}.
+     */
+    public static ReportQuery weeklyTrend(int weeks) {
+        if (weeks < 1) {
+            throw new IllegalArgumentException("The trend needs at least one week");
+        }
+        return new ReportQuery("genre_weekly", """
+                SELECT week_of,genre,SUM(minutes_played) AS minutes_played
+                FROM playtime_weekly
+                WHERE week_of >= (SELECT MIN(week_of) FROM
+                    (SELECT DISTINCT week_of FROM playtime_weekly ORDER BY week_of DESC LIMIT %d) recent)
+                GROUP BY week_of, genre
+                ORDER BY week_of DESC, minutes_played DESC, genre;
+                """.formatted(weeks), List.of(
+                new ReportColumn("week_of", ReportColumn.Type.STRING),
+                new ReportColumn("genre", ReportColumn.Type.STRING),
+                new ReportColumn("minutes_played", ReportColumn.Type.LONG)));
+    }
+}
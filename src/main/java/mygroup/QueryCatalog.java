@@ -0,0 +1,70 @@
+package mygroup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Loads the report queries. The catalog is a JSON array of query definitions read
+ * from the file named by the {@code queries.file} setting or, failing that, from a
+ * resource named "queries.json". Without either, the built-in reports are used.
+ *
+ * <pre>
+ * [{"name": "top_games",
+ *   "sql": "SELECT SUM(minutes_played) AS minutes_played, name FROM games GROUP BY name ORDER BY 1 DESC LIMIT ?",
+ *   "params": [50],
+ *   "columns": [{"name": "name", "type": "STRING"}, {"name": "minutes_played", "type": "LONG"}],
+ *   "streaming": false}]
+ * </pre>
+ */
+public final class QueryCatalog {
+    private static final Logger logger = AppLogger.get();
+
+    private QueryCatalog() {}
+
+    /**
+     * Loads the configured catalog.
+     *
+     * @param defaults The queries to use when no catalog is configured.
+     * @return The report queries in output order.
+     */
+    public static List<ReportQuery> load(List<ReportQuery> defaults) {
+        String file = Settings.get("queries.file", null);
+        try {
+            if (file != null) {
+                try (InputStream in = Files.newInputStream(Path.of(file))) {
+                    return parse(in, file);
+                }
+            }
+            InputStream in = QueryCatalog.class.getClassLoader().getResourceAsStream("queries.json");
+            if (in == null) {
+                return defaults;
+            }
+            try (in) {
+                return parse(in, "queries.json");
+            }
+        } catch (IOException e) {
+            logger.log(Level.FINE, "Error reading query catalog", e);
+            throw new RuntimeException("Error reading query catalog " + (file == null ? "queries.json" : file));
+        }
+    }
+
+    private static List<ReportQuery> parse(InputStream in, String source) throws IOException {
+        List<ReportQuery> queries = new ObjectMapper().readValue(in, new TypeReference<List<ReportQuery>>() {});
+        Set<String> names = new HashSet<String>();
+        for (ReportQuery query : queries) {
+            if (!names.add(query.name())) {
+                throw new IllegalArgumentException("Duplicate query name in " + source + ": " + query.name());
+            }
+        }
+        logger.info("Loaded " + queries.size() + " report queries from " + source);
+        return queries;
+    }
+}
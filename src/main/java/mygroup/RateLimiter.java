@@ -0,0 +1,68 @@
+package mygroup;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A token bucket shared by all request threads. Tokens are added at a fixed rate up
+ * to a burst capacity and every request takes one. A thread that finds the bucket
+ * empty reserves the next token and sleeps until it is due, so waiting threads are
+ * served in arrival order without holding the lock while they sleep.
+ */
+public class RateLimiter {
+    private final double permitsPerNano;
+    private final double capacity;
+    private double tokens;
+    private long last;
+
+    /**
+     * Constructs a full bucket.
+     *
+     * @param permitsPerSecond The sustained request rate.
+     * @param burst            The number of requests that may be sent back to back.
+     */
+    public RateLimiter(double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0)) {
+            throw new IllegalArgumentException("Rate must be positive");
+        }
+        if (burst < 1) {
+            throw new IllegalArgumentException("Burst must be at least 1");
+        }
+        this.permitsPerNano = permitsPerSecond / 1e9;
+        this.capacity = burst;
+        this.tokens = burst;
+        this.last = System.nanoTime();
+    }
+
+    /**
+     * Takes a token, waiting until one is available.
+     *
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public void acquire() throws InterruptedException {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            tokens -= 1;
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / permitsPerNano);
+        }
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Empties the bucket and holds back further tokens for the given time, so that all
+     * threads slow down after the server reports that the rate limit was exceeded.
+     *
+     * @param millis The time before the next token becomes available.
+     */
+    public synchronized void backOff(long millis) {
+        refill();
+        tokens = Math.min(tokens, 0) - millis * 1e6 * permitsPerNano;
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - last) * permitsPerNano);
+        last = now;
+    }
+}
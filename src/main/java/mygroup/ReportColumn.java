@@ -0,0 +1,15 @@
+package mygroup;
+
+/**
+ * An output column of a report query.
+ *
+ * @param name The column label in the result set, also used as the JSON field name.
+ * @param type How the value is read from the result set and written to the output.
+ */
+public record ReportColumn(String name, Type type) {
+
+    /**
+     * The value types a report column can have.
+     */
+    public enum Type { STRING, LONG, DOUBLE }
+}
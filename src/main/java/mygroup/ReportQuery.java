@@ -0,0 +1,41 @@
+package mygroup;
+import java.util.List;
+
+/**
+ * A named report: the SQL that produces it, the values bound to its parameters and
+ * the columns written for each row.
+ *
+ * @param name      The section name in the output, for example {@code top_games}.
+ * @param sql       The query to execute.
+ * @param params    Values bound to the {@code ?} placeholders, in order.
+ * @param columns   The columns to write, in output order.
+ * @param fetchSize The JDBC fetch size hint, or 0 for the driver default. With MySQL a
+ *                  positive value only takes effect with {@code useCursorFetch=true}.
+ * @param streaming Whether MySQL should send the rows one at a time instead of
+ *                  buffering the whole result set in the driver.
+ */
+public record ReportQuery(String name, String sql, List<Object> params, List<ReportColumn> columns,
+                          int fetchSize, boolean streaming) {
+
+    /**
+     * Validates the definition and replaces missing parameters with an empty list.
+     */
+    public ReportQuery {
+        if (name == null || sql == null || columns == null || columns.isEmpty()) {
+            throw new IllegalArgumentException("A report query needs a name, sql and columns");
+        }
+        params = params == null ? List.of() : List.copyOf(params);
+        columns = List.copyOf(columns);
+    }
+
+    /**
+     * Creates a query without parameters that uses the driver's default fetching.
+     *
+     * @param name    The section name in the output.
+     * @param sql     The query to execute.
+     * @param columns The columns to write, in output order.
+     */
+    public ReportQuery(String name, String sql, List<ReportColumn> columns) {
+        this(name, sql, List.of(), columns, 0, false);
+    }
+}
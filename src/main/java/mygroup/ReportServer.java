@@ -0,0 +1,173 @@
+package mygroup;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Logger;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Serves the report results of the latest refresh over HTTP, so that dashboards can
+ * poll them without reading result.json or querying the database:
+ * <ul>
+ *   <li>{@code /api/reports}: every report, in the format of result.json.</li>
+ *   <li>{@code /api/reports/<name>}: the rows of one report, such as {@code top_games}
+ *       or {@code top_genres}.</li>
+ *   <li>{@code /api/games/<name>}: the totals of one game, by its exact name.</li>
+ * </ul>
+ * Requests are answered from a {@link ReportSnapshot} that is replaced as a whole after
+ * each refresh, so a request never sees half of one refresh and half of another. Every
+ * request runs on its own virtual thread. Responses carry the snapshot's time and version
+ * as their {@code ETag}, and a matching {@code If-None-Match} is answered with 304. Until the
+ * first snapshot is published, every request is answered with 503. The server listens
+ * on the loopback interface unless another bind address is configured.
+ */
+public class ReportServer {
+    private static final String REPORTS = "/api/reports";
+    private static final String GAMES = "/api/games/";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final AtomicReference<ReportSnapshot> snapshot = new AtomicReference<ReportSnapshot>();
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * Binds the server to a port. Call {@link #start()} to begin serving.
+     *
+     * @param bindAddress The address to listen on, such as {@code 127.0.0.1}, or
+     *                    {@code 0.0.0.0} for every interface.
+     * @param port        The port to listen on.
+     * @throws IOException If the port cannot be bound.
+     */
+    public ReportServer(String bindAddress, int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress(bindAddress, port), 0);
+        executor = Executors.newVirtualThreadPerTaskExecutor();
+        server.setExecutor(executor);
+        server.createContext(REPORTS, this::handleReports);
+        server.createContext(GAMES, this::handleGame);
+    }
+
+    /**
+     * Starts a server on the port named by the {@code api.port} setting, if any,
+     * listening on {@code api.bindAddress} (default {@code 127.0.0.1}).
+     *
+     * @return The started server, or {@code null} when no port is configured.
+     * @throws IOException If the port cannot be bound.
+     */
+    public static ReportServer startIfConfigured() throws IOException {
+        int port = Settings.getInt("api.port", -1);
+        if (port < 0) {
+            return null;
+        }
+        ReportServer reportServer = new ReportServer(Settings.get("api.bindAddress", "127.0.0.1"), port);
+        reportServer.start();
+        return reportServer;
+    }
+
+    /**
+     * Starts serving requests.
+     */
+    public void start() {
+        server.start();
+        logger.info("Report API available on " + server.getAddress().getHostString() + ":" + server.getAddress().getPort());
+    }
+
+    /**
+     * Stops the server.
+     */
+    public void stop() {
+        server.stop(0);
+        executor.close();
+    }
+
+    /**
+     * Replaces the results being served. Requests that have already read the previous
+     * snapshot finish with it.
+     *
+     * @param next The new snapshot.
+     */
+    public void publish(ReportSnapshot next) {
+        snapshot.set(next);
+        logger.fine(() -> "Serving report snapshot " + next.version());
+    }
+
+    private void handleReports(HttpExchange exchange) throws IOException {
+        ReportSnapshot current = snapshot.get();
+        if (!ready(exchange, current)) {
+            return;
+        }
+        String path = exchange.getRequestURI().getPath();
+        if (path.equals(REPORTS) || path.equals(REPORTS + "/")) {
+            respond(exchange, current, current.reports());
+        } else if (path.startsWith(REPORTS + "/")) {
+            respond(exchange, current, current.section(path.substring(REPORTS.length() + 1)));
+        } else {
+            respond(exchange, current, null);
+        }
+    }
+
+    private void handleGame(HttpExchange exchange) throws IOException {
+        ReportSnapshot current = snapshot.get();
+        if (!ready(exchange, current)) {
+            return;
+        }
+        // getPath() has already decoded escapes such as %20
+        respond(exchange, current, current.game(exchange.getRequestURI().getPath().substring(GAMES.length())));
+    }
+
+    /**
+     * Answers requests that cannot be served from the snapshot: methods other than GET
+     * and HEAD, and any request before the first snapshot.
+     *
+     * @return {@code true} if the request still has to be answered.
+     */
+    private static boolean ready(HttpExchange exchange, ReportSnapshot current) throws IOException {
+        String method = exchange.getRequestMethod();
+        if (!"GET".equals(method) && !"HEAD".equals(method)) {
+            exchange.getResponseHeaders().set("Allow", "GET, HEAD");
+            exchange.sendResponseHeaders(405, -1);
+            exchange.close();
+            return false;
+        }
+        if (current == null) {
+            exchange.getResponseHeaders().set("Retry-After", "5");
+            exchange.sendResponseHeaders(503, -1);
+            exchange.close();
+            return false;
+        }
+        return true;
+    }
+
+    private static void respond(HttpExchange exchange, ReportSnapshot current, byte[] body) throws IOException {
+        try (exchange) {
+            Metrics.count("api_requests", 1);
+            if (body == null) {
+                byte[] message = "{\"error\":\"not found\"}".getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(404, message.length);
+                exchange.getResponseBody().write(message);
+                return;
+            }
+            String etag = "\"" + current.createdMillis() + "-" + current.version() + "\"";
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+            if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                exchange.sendResponseHeaders(304, -1);
+                return;
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+}
@@ -0,0 +1,277 @@
+package mygroup;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+/**
+ * The results of one refresh as the {@link ReportServer} sends them. Every response
+ * is serialized once when the snapshot is built, so serving a request only copies
+ * bytes. A snapshot never changes; a refresh builds a new one.
+ */
+public final class ReportSnapshot {
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final long version;
+    private final long createdMillis;
+    private final byte[] reports;
+    private final Map<String,byte[]> sections;
+    private final Map<String,byte[]> games;
+
+    private ReportSnapshot(byte[] reports, Map<String,byte[]> sections, Map<String,byte[]> games) {
+        this.version = VERSIONS.incrementAndGet();
+        this.createdMillis = System.currentTimeMillis();
+        this.reports = reports;
+        this.sections = Collections.unmodifiableMap(sections);
+        this.games = Collections.unmodifiableMap(games);
+    }
+
+    /**
+     * Gets the number of this snapshot, which grows with every snapshot built.
+     *
+     * @return The version.
+     */
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Gets the time the snapshot was built.
+     *
+     * @return The time in milliseconds since the Unix epoch.
+     */
+    public long createdMillis() {
+        return createdMillis;
+    }
+
+    /**
+     * Gets all reports as one JSON document, in the format of result.json.
+     *
+     * @return The UTF-8 JSON bytes.
+     */
+    public byte[] reports() {
+        return reports;
+    }
+
+    /**
+     * Gets the rows of one report as a JSON array.
+     *
+     * @param name The report name, such as {@code top_games}.
+     * @return The UTF-8 JSON bytes, or {@code null} if there is no such report.
+     */
+    public byte[] section(String name) {
+        return sections.get(name);
+    }
+
+    /**
+     * Gets the totals of one game as a JSON object, counted as the {@code top_games}
+     * report counts them.
+     *
+     * @param name The exact game name.
+     * @return The UTF-8 JSON bytes, or {@code null} if no library holds the game.
+     */
+    public byte[] game(String name) {
+        return games.get(name);
+    }
+
+    /**
+     * A {@link ResultSink} that passes everything on to another sink and keeps a copy
+     * of the rows, from which the snapshot is built once the results are complete.
+     */
+    public static final class Recorder implements ResultSink {
+        private final ResultSink delegate;
+        private final ObjectMapper objectMapper = new ObjectMapper();
+        private final ObjectNode root = objectMapper.createObjectNode();
+        private ArrayNode section;
+        private ObjectNode row;
+
+        /**
+         * Constructs a recorder.
+         *
+         * @param delegate The sink that receives the results.
+         */
+        public Recorder(ResultSink delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void beginSection(String name) throws IOException {
+            delegate.beginSection(name);
+            section = root.putArray(name);
+        }
+
+        @Override
+        public void beginRow() throws IOException {
+            delegate.beginRow();
+            row = section.addObject();
+        }
+
+        @Override
+        public void writeString(String column, String value) throws IOException {
+            delegate.writeString(column, value);
+            row.put(column, value);
+        }
+
+        @Override
+        public void writeNumber(String column, long value) throws IOException {
+            delegate.writeNumber(column, value);
+            row.put(column, value);
+        }
+
+        @Override
+        public void writeNumber(String column, double value) throws IOException {
+            delegate.writeNumber(column, value);
+            row.put(column, value);
+        }
+
+        @Override
+        public void writeNull(String column) throws IOException {
+            delegate.writeNull(column);
+            row.putNull(column);
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            delegate.endRow();
+            row = null;
+        }
+
+        @Override
+        public void endSection() throws IOException {
+            delegate.endSection();
+            section = null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        /**
+         * Builds the snapshot from the recorded reports and a per-game summary of the
+         * game list: the minutes played, the number of libraries holding the game and
+         * its genre, plus the hours since it was last played when it has been
+         * formatted. The minutes match the {@code top_games} report: summed over the
+         * libraries when the games are stored per account, otherwise the value of the
+         * last library, which is the one the shared games table keeps.
+         *
+         * @param gameList The games the reports were computed from.
+         * @param genreMap The mapping of game names to genres.
+         * @param summed   Whether the minutes and hours of a game are combined across
+         *                 libraries rather than taken from the last one.
+         * @return The snapshot.
+         * @throws IOException If serializing fails.
+         */
+        public ReportSnapshot build(List<Game> gameList, GenreMap genreMap, boolean summed) throws IOException {
+            GameTotals totals = new GameTotals(summed);
+            totals.add(gameList, genreMap);
+            return build(totals);
+        }
+
+        /**
+         * Builds the snapshot from the recorded reports and per-game totals that were
+         * collected while the games were written.
+         *
+         * @param totals The totals of the games the reports were computed from.
+         * @return The snapshot.
+         * @throws IOException If serializing fails.
+         */
+        public ReportSnapshot build(GameTotals totals) throws IOException {
+            Map<String,byte[]> sections = new LinkedHashMap<String,byte[]>();
+            Iterator<String> names = root.fieldNames();
+            while (names.hasNext()) {
+                String name = names.next();
+                sections.put(name, objectMapper.writeValueAsBytes(root.get(name)));
+            }
+            Map<String,byte[]> games = new HashMap<String,byte[]>(totals.summaries.size() * 4 / 3 + 1);
+            for (Map.Entry<String,GameSummary> entry : totals.summaries.entrySet()) {
+                String name = entry.getKey();
+                GameSummary summary = entry.getValue();
+                ObjectNode node = objectMapper.createObjectNode();
+                node.put("name", name);
+                node.put("genre", summary.genre);
+                node.put("minutes_played", summary.minutes);
+                node.put("owners", summary.owners);
+                if (!Double.isNaN(summary.hours)) {
+                    node.put("hours_since_last_played", summary.hours);
+                }
+                games.put(name, objectMapper.writeValueAsBytes(node));
+            }
+            return new ReportSnapshot(objectMapper.writeValueAsBytes(root), sections, games);
+        }
+    }
+
+    /**
+     * The per-game totals behind {@code /api/games}, added up one batch of games at a
+     * time. A crawl writes its games in batches and does not keep them, so the totals
+     * are collected as the batches are written; one game list is added in one go.
+     */
+    public static final class GameTotals {
+        private final boolean summed;
+        private final Map<String,GameSummary> summaries = new HashMap<String,GameSummary>();
+
+        /**
+         * Constructs empty totals.
+         *
+         * @param summed Whether the minutes and hours of a game are combined across
+         *               libraries rather than taken from the last one.
+         */
+        public GameTotals(boolean summed) {
+            this.summed = summed;
+        }
+
+        /**
+         * Adds a batch of games. The genres are taken from the genre map now, since a
+         * crawl maps every batch anew.
+         *
+         * @param games    The games, in the order they were written.
+         * @param genreMap The mapping of the batch's game names to genres.
+         */
+        public void add(List<Game> games, GenreMap genreMap) {
+            for (Game game : games) {
+                GameSummary summary = summaries.get(game.getName());
+                if (summary == null) {
+                    summary = new GameSummary(genreMap.genreOf(game.getName()));
+                    summaries.put(game.getName(), summary);
+                }
+                summary.add(game, summed);
+            }
+        }
+    }
+
+    /**
+     * The totals of one game across libraries.
+     */
+    private static final class GameSummary {
+        final String genre;
+        long minutes;
+        int owners;
+        double hours = Double.NaN;
+
+        GameSummary(String genre) {
+            this.genre = genre;
+        }
+
+        void add(Game game, boolean summed) {
+            owners++;
+            double since = game.getHoursSinceLastPlayed();
+            if (!summed) {
+                // a later library overwrites the row, as the upsert does
+                minutes = game.getMinutesPlayed();
+                hours = since;
+                return;
+            }
+            minutes += game.getMinutesPlayed();
+            if (Double.isNaN(hours) || since < hours) {
+                hours = since;
+            }
+        }
+    }
+}
@@ -0,0 +1,464 @@
+package mygroup;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Sends GET requests so that a slow or failing server cannot hold up a run for long.
+ * <ul>
+ *   <li>Connecting, waiting for the response headers and reading the body are
+ *       bounded by timeouts. A body that is not read in time fails with an
+ *       {@link HttpTimeoutException} from the body, even when it is streamed.</li>
+ *   <li>Network errors, timeouts, 429 and 5xx answers are retried according to a
+ *       {@link RetryPolicy}. A {@code Retry-After} longer than the policy's largest
+ *       delay ends the retries instead of stalling the run.</li>
+ *   <li>Once a host has answered {@value #MIN_SAMPLES} requests, a request that takes
+ *       longer than the configured percentile of the recent latencies is hedged: a
+ *       duplicate is sent and whichever answers first is used. Callers that meter
+ *       their own requests can turn this off per request.</li>
+ *   <li>Every host has a {@link CircuitBreaker}. While it is open, requests fail at
+ *       once with a {@link CircuitOpenException}. Network errors, timeouts and 5xx
+ *       answers count as failures, as does a request that ends without an answer
+ *       because it was interrupted or cancelled.</li>
+ * </ul>
+ */
+public class ResilientHttpClient {
+    /** Number of latencies a host needs before its requests are hedged. */
+    static final int MIN_SAMPLES = 20;
+    private static final int WINDOW = 256;
+    private static final ScheduledThreadPoolExecutor BODY_TIMER = bodyTimer();
+
+    private final HttpClient client;
+    private final Duration requestTimeout;
+    private final long bodyTimeoutMillis;
+    private final RetryPolicy retryPolicy;
+    private final double hedgePercentile;
+    private final long hedgeMinMillis;
+    private final int breakerFailures;
+    private final long breakerOpenMillis;
+    private final ConcurrentMap<String,Host> hosts = new ConcurrentHashMap<String,Host>();
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * Constructs a client configured by the {@code fetch.*} settings: a connect timeout
+     * of {@code fetch.connectTimeoutMillis} (default 5000), a response timeout of
+     * {@code fetch.timeoutMillis} (default 30000) and a body timeout of
+     * {@code fetch.bodyTimeoutMillis} (default 60000); up to {@code fetch.maxAttempts}
+     * attempts (default 3) with delays bounded by {@code fetch.retryBaseMillis}
+     * (default 500) doubling up to {@code fetch.retryMaxMillis} (default 5000); hedging
+     * after the {@code fetch.hedgePercentile} latency (default 0.95, but not before
+     * {@code fetch.hedgeMinMillis}, default 100), unless {@code fetch.hedge} is
+     * {@code false}; and breakers that open for {@code fetch.breakerOpenMillis}
+     * (default 30000) after {@code fetch.breakerFailures} consecutive failures (default 5).
+     */
+    public ResilientHttpClient() {
+        this(HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(Settings.getLong("fetch.connectTimeoutMillis", 5000)))
+                .build(),
+            Duration.ofMillis(Settings.getLong("fetch.timeoutMillis", 30_000)),
+            Duration.ofMillis(Settings.getLong("fetch.bodyTimeoutMillis", 60_000)),
+            new RetryPolicy(Settings.getInt("fetch.maxAttempts", 3),
+                Settings.getLong("fetch.retryBaseMillis", 500), Settings.getLong("fetch.retryMaxMillis", 5000)),
+            Settings.getBoolean("fetch.hedge", true) ? Settings.getDouble("fetch.hedgePercentile", 0.95) : 0,
+            Settings.getLong("fetch.hedgeMinMillis", 100),
+            Settings.getInt("fetch.breakerFailures", 5),
+            Settings.getLong("fetch.breakerOpenMillis", 30_000));
+    }
+
+    /**
+     * Constructs a client.
+     *
+     * @param client            The underlying HTTP client, with its connect timeout.
+     * @param requestTimeout    The longest wait for the response headers.
+     * @param bodyTimeout       The longest time for reading a response body, counted
+     *                          from the response headers; zero turns it off.
+     * @param retryPolicy       The policy for failed requests.
+     * @param hedgePercentile   The latency percentile after which a request is hedged,
+     *                          between 0 and 1; 0 turns hedging off.
+     * @param hedgeMinMillis    The shortest wait before a request is hedged.
+     * @param breakerFailures   The consecutive failures that open a host's breaker.
+     * @param breakerOpenMillis How long a breaker stays open.
+     */
+    public ResilientHttpClient(HttpClient client, Duration requestTimeout, Duration bodyTimeout, RetryPolicy retryPolicy,
+            double hedgePercentile, long hedgeMinMillis, int breakerFailures, long breakerOpenMillis) {
+        if (hedgePercentile < 0 || hedgePercentile >= 1) {
+            throw new IllegalArgumentException("Hedge percentile must be at least 0 and below 1");
+        }
+        if (bodyTimeout.isNegative()) {
+            throw new IllegalArgumentException("Body timeout must not be negative");
+        }
+        this.client = client;
+        this.requestTimeout = requestTimeout;
+        this.bodyTimeoutMillis = bodyTimeout.toMillis();
+        this.retryPolicy = retryPolicy;
+        this.hedgePercentile = hedgePercentile;
+        this.hedgeMinMillis = hedgeMinMillis;
+        this.breakerFailures = breakerFailures;
+        this.breakerOpenMillis = breakerOpenMillis;
+        // fail on bad breaker settings now rather than on the first request
+        new CircuitBreaker(breakerFailures, breakerOpenMillis);
+    }
+
+    /**
+     * Starts a GET request for a URL with the response timeout set.
+     *
+     * @param url The URL.
+     * @return The request builder, to which headers may be added.
+     */
+    public HttpRequest.Builder newRequest(String url) {
+        return HttpRequest.newBuilder().uri(URI.create(url)).timeout(requestTimeout).GET();
+    }
+
+    /**
+     * Sends a request, retrying it as often as the retry policy allows.
+     *
+     * @param request The GET request.
+     * @param handler The body handler.
+     * @return The response.
+     * @throws IOException          If the last attempt failed on the network or timed
+     *                              out, or the host's breaker is open.
+     * @throws InterruptedException If interrupted while waiting.
+     * @see #send(HttpRequest, HttpResponse.BodyHandler, int, boolean)
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler)
+            throws IOException, InterruptedException {
+        return send(request, handler, retryPolicy.maxAttempts(), true);
+    }
+
+    /**
+     * Sends a request with timeouts, retries, hedging and the host's circuit breaker.
+     * The returned response may still have a failing status when the retries ran out
+     * or the status is not worth retrying; its body must be consumed or closed.
+     *
+     * @param request     The GET request.
+     * @param handler     The body handler.
+     * @param maxAttempts The attempts to make at most, capped by the retry policy; 1
+     *                    leaves retrying to the caller.
+     * @param hedge       Whether a slow request may be duplicated. Callers that count
+     *                    their requests against a rate limit pass {@code false}, since
+     *                    a hedge is a request they have not counted.
+     * @return The response.
+     * @throws IOException          If the last attempt failed on the network or timed
+     *                              out, or the host's breaker is open.
+     * @throws InterruptedException If interrupted while waiting.
+     */
+    public <T> HttpResponse<T> send(HttpRequest request, HttpResponse.BodyHandler<T> handler, int maxAttempts,
+            boolean hedge) throws IOException, InterruptedException {
+        URI uri = request.uri();
+        String hostKey = uri.getHost() + ":" + uri.getPort();
+        Host host = hosts.computeIfAbsent(hostKey, k -> new Host(new CircuitBreaker(breakerFailures, breakerOpenMillis)));
+        int attempts = Math.max(1, Math.min(maxAttempts, retryPolicy.maxAttempts()));
+        HttpResponse.BodyHandler<T> timed = bodyTimeoutMillis == 0 ? handler
+            : info -> new TimedBodySubscriber<T>(handler.apply(info), bodyTimeoutMillis);
+        for (int attempt = 1; ; attempt++) {
+            if (!host.breaker.tryAcquire()) {
+                Metrics.count("fetch_circuit_open", 1);
+                throw new CircuitOpenException(hostKey, host.breaker.remainingOpenMillis());
+            }
+            long start = System.nanoTime();
+            HttpResponse<T> response = null;
+            IOException failure = null;
+            boolean succeeded = false;
+            try {
+                response = sendHedged(request, timed, host, hedge);
+                if (response.statusCode() < 500) {
+                    host.breaker.onSuccess();
+                    succeeded = true;
+                    host.record(System.nanoTime() - start);
+                }
+            } catch (IOException e) {
+                failure = e;
+            } finally {
+                // an interrupted or cancelled trial request must not leave the breaker half open
+                if (!succeeded) {
+                    host.breaker.onFailure();
+                }
+            }
+            if (failure != null) {
+                if (failure instanceof HttpTimeoutException) {
+                    Metrics.count("fetch_timeouts", 1);
+                }
+                if (attempt >= attempts) {
+                    throw failure;
+                }
+                retryAfter(attempt, retryPolicy.delayMillis(attempt, -1), failure.getMessage());
+                continue;
+            }
+            int status = response.statusCode();
+            if (!RetryPolicy.isRetryable(status) || attempt >= attempts) {
+                return response;
+            }
+            long delay = retryPolicy.delayMillis(attempt,
+                HttpStatusException.parseRetryAfter(response.headers().firstValue("Retry-After").orElse(null)));
+            if (delay > retryPolicy.maxDelayMillis()) {
+                // the server asked for a longer pause than a run should wait
+                return response;
+            }
+            discard(response);
+            retryAfter(attempt, delay, "status code " + status);
+        }
+    }
+
+    private static void retryAfter(int attempt, long delay, String reason) throws InterruptedException {
+        Metrics.count("fetch_retries", 1);
+        logger.fine(() -> "Attempt " + attempt + " failed (" + reason + "), retrying in " + delay + " ms");
+        TimeUnit.MILLISECONDS.sleep(delay);
+    }
+
+    /**
+     * Sends the request and, if hedging is allowed and it has not been answered after the
+     * host's hedge delay, a duplicate. The first successful answer wins and the other
+     * request is cancelled.
+     */
+    private <T> HttpResponse<T> sendHedged(HttpRequest request, HttpResponse.BodyHandler<T> handler, Host host,
+            boolean hedged) throws IOException, InterruptedException {
+        CompletableFuture<HttpResponse<T>> primary = client.sendAsync(request, handler);
+        long hedgeDelay = hedged && host.breaker.isClosed() ? hedgeDelayMillis(host) : -1;
+        if (hedgeDelay < 0) {
+            return await(primary);
+        }
+        try {
+            return await(primary, hedgeDelay);
+        } catch (TimeoutException e) {
+            // too slow, send the duplicate below
+        }
+        Metrics.count("fetch_hedged", 1);
+        CompletableFuture<HttpResponse<T>> hedge = client.sendAsync(request, handler);
+        CompletableFuture<HttpResponse<T>> first = new CompletableFuture<HttpResponse<T>>();
+        AtomicInteger pending = new AtomicInteger(2);
+        for (CompletableFuture<HttpResponse<T>> attempt : Arrays.asList(primary, hedge)) {
+            attempt.whenComplete((response, failure) -> {
+                if (failure == null) {
+                    if (!first.complete(response)) {
+                        discard(response);
+                    }
+                } else if (pending.decrementAndGet() == 0) {
+                    first.completeExceptionally(failure);
+                }
+            });
+        }
+        try {
+            HttpResponse<T> response = await(first);
+            if (hedge.isDone() && !hedge.isCompletedExceptionally() && hedge.join() == response) {
+                Metrics.count("fetch_hedge_wins", 1);
+            }
+            return response;
+        } finally {
+            primary.cancel(true);
+            hedge.cancel(true);
+        }
+    }
+
+    /**
+     * Computes how long to wait before hedging a request to a host.
+     *
+     * @return The delay in milliseconds, or -1 if the request is not hedged.
+     */
+    private long hedgeDelayMillis(Host host) {
+        if (hedgePercentile == 0) {
+            return -1;
+        }
+        long nanos = host.percentile(hedgePercentile);
+        return nanos < 0 ? -1 : Math.max(hedgeMinMillis, TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private static <T> T await(CompletableFuture<T> future) throws IOException, InterruptedException {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> future, long millis)
+            throws IOException, InterruptedException, TimeoutException {
+        try {
+            return future.get(millis, TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            throw e;
+        }
+    }
+
+    private static IOException unwrap(ExecutionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IOException io) {
+            return io;
+        }
+        if (cause instanceof RuntimeException re && !(re instanceof CancellationException)) {
+            throw re;
+        }
+        logger.log(Level.FINE, "Request failed", cause);
+        return new IOException("Request failed: " + cause);
+    }
+
+    /**
+     * Releases a response that will not be used, closing a streamed body.
+     */
+    private static void discard(HttpResponse<?> response) {
+        if (response.body() instanceof AutoCloseable body) {
+            try {
+                body.close();
+            } catch (Exception e) {
+                logger.log(Level.FINE, "Error closing response body", e);
+            }
+        }
+    }
+
+    private static ScheduledThreadPoolExecutor bodyTimer() {
+        ScheduledThreadPoolExecutor timer = new ScheduledThreadPoolExecutor(1, task -> {
+            Thread thread = new Thread(task, "http-body-timeout");
+            thread.setDaemon(true);
+            return thread;
+        });
+        timer.setRemoveOnCancelPolicy(true);
+        return timer;
+    }
+
+    /**
+     * Fails a response body that has not been read completely within the body timeout.
+     * The HTTP client's own timeout ends with the response headers, so without this a
+     * server that stalls halfway through a body would block its reader indefinitely.
+     * On expiry the download is cancelled and the wrapped subscriber receives an
+     * {@link HttpTimeoutException}, which wakes a reader blocked on a streamed body.
+     */
+    private static final class TimedBodySubscriber<T> implements HttpResponse.BodySubscriber<T> {
+        private final HttpResponse.BodySubscriber<T> downstream;
+        private final long timeoutMillis;
+        private final AtomicBoolean done = new AtomicBoolean();
+        private volatile Flow.Subscription subscription;
+        private volatile ScheduledFuture<?> timeout;
+
+        TimedBodySubscriber(HttpResponse.BodySubscriber<T> downstream, long timeoutMillis) {
+            this.downstream = downstream;
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription upstream) {
+            subscription = upstream;
+            downstream.onSubscribe(new Flow.Subscription() {
+                @Override
+                public void request(long n) {
+                    upstream.request(n);
+                }
+
+                @Override
+                public void cancel() {
+                    // the reader closed the body, nothing is left to time out
+                    finish();
+                    upstream.cancel();
+                }
+            });
+            ScheduledFuture<?> scheduled = BODY_TIMER.schedule(this::expire, timeoutMillis, TimeUnit.MILLISECONDS);
+            timeout = scheduled;
+            if (done.get()) {
+                scheduled.cancel(false);
+            }
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) {
+            if (!done.get()) {
+                downstream.onNext(item);
+            }
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (finish()) {
+                downstream.onError(throwable);
+            }
+        }
+
+        @Override
+        public void onComplete() {
+            if (finish()) {
+                downstream.onComplete();
+            }
+        }
+
+        private boolean finish() {
+            if (!done.compareAndSet(false, true)) {
+                return false;
+            }
+            ScheduledFuture<?> scheduled = timeout;
+            if (scheduled != null) {
+                scheduled.cancel(false);
+            }
+            return true;
+        }
+
+        private void expire() {
+            if (done.compareAndSet(false, true)) {
+                Metrics.count("fetch_body_timeouts", 1);
+                downstream.onError(new HttpTimeoutException("Response body not read within " + timeoutMillis + " ms"));
+                subscription.cancel();
+            }
+        }
+    }
+
+    /**
+     * The breaker and recent latencies of one host.
+     */
+    private static final class Host {
+        final CircuitBreaker breaker;
+        private final long[] latencies = new long[WINDOW];
+        private int recorded;
+
+        Host(CircuitBreaker breaker) {
+            this.breaker = breaker;
+        }
+
+        synchronized void record(long nanos) {
+            latencies[recorded % WINDOW] = nanos;
+            recorded++;
+        }
+
+        /**
+         * @return The latency at the percentile of the recent requests in nanoseconds,
+         *         or -1 while there are fewer than {@link #MIN_SAMPLES}.
+         */
+        synchronized long percentile(double p) {
+            int size = Math.min(recorded, WINDOW);
+            if (size < MIN_SAMPLES) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(latencies, size);
+            Arrays.sort(sorted);
+            return sorted[Math.min(size - 1, (int) Math.ceil(p * size) - 1)];
+        }
+    }
+}
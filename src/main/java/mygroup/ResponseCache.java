@@ -0,0 +1,24 @@
+package mygroup;
+
+/**
+ * A store for HTTP response bodies keyed by URL. Implementations must be safe to
+ * use from several fetch threads at once.
+ */
+public interface ResponseCache {
+
+    /**
+     * Looks up the response stored for a URL.
+     *
+     * @param url The request URL.
+     * @return The stored response, or {@code null} if there is none.
+     */
+    CachedResponse get(String url);
+
+    /**
+     * Stores or replaces the response for a URL.
+     *
+     * @param url      The request URL.
+     * @param response The response to store.
+     */
+    void put(String url, CachedResponse response);
+}
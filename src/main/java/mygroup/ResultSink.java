@@ -0,0 +1,93 @@
+package mygroup;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Receives report results row by row, so that results are written out as they are
+ * read instead of being collected in memory first. Each report is written as a
+ * section; a section holds rows and a row holds named, typed fields.
+ */
+public interface ResultSink extends Closeable {
+
+    /**
+     * Starts a report section.
+     *
+     * @param name The report name.
+     * @throws IOException If writing fails.
+     */
+    void beginSection(String name) throws IOException;
+
+    /**
+     * Starts a row in the current section.
+     *
+     * @throws IOException If writing fails.
+     */
+    void beginRow() throws IOException;
+
+    /**
+     * Writes a text field, or a null if {@code value} is {@code null}.
+     *
+     * @param column The field name.
+     * @param value  The value.
+     * @throws IOException If writing fails.
+     */
+    void writeString(String column, String value) throws IOException;
+
+    /**
+     * Writes an integer field.
+     *
+     * @param column The field name.
+     * @param value  The value.
+     * @throws IOException If writing fails.
+     */
+    void writeNumber(String column, long value) throws IOException;
+
+    /**
+     * Writes a decimal field.
+     *
+     * @param column The field name.
+     * @param value  The value.
+     * @throws IOException If writing fails.
+     */
+    void writeNumber(String column, double value) throws IOException;
+
+    /**
+     * Writes a null field.
+     *
+     * @param column The field name.
+     * @throws IOException If writing fails.
+     */
+    void writeNull(String column) throws IOException;
+
+    /**
+     * Ends the current row.
+     *
+     * @throws IOException If writing fails.
+     */
+    void endRow() throws IOException;
+
+    /**
+     * Ends the current section.
+     *
+     * @throws IOException If writing fails.
+     */
+    void endSection() throws IOException;
+
+    /**
+     * Opens a sink writing to a file.
+     *
+     * @param file   The output file.
+     * @param format {@code json} for one document with an array per report, or
+     *               {@code ndjson} for one JSON object per line.
+     * @return The open sink.
+     * @throws IOException If the file cannot be opened.
+     */
+    static ResultSink open(File file, String format) throws IOException {
+        return switch (format) {
+            case "json" -> new JsonResultSink(file);
+            case "ndjson" -> new NdjsonResultSink(file);
+            default -> throw new IllegalArgumentException("Unknown result format: " + format);
+        };
+    }
+}
@@ -0,0 +1,77 @@
+package mygroup;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Decides whether and when a failed request is retried. Delays grow exponentially
+ * from a base delay up to a cap and are drawn uniformly below that bound ("full
+ * jitter"), so clients that failed together do not retry together. A delay asked for
+ * by the server is never undercut.
+ */
+public class RetryPolicy {
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+
+    /**
+     * Constructs a policy.
+     *
+     * @param maxAttempts     The total number of attempts, including the first.
+     * @param baseDelayMillis The bound on the delay after the first failure.
+     * @param maxDelayMillis  The largest bound on any delay.
+     */
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("At least one attempt is needed");
+        }
+        if (baseDelayMillis < 0 || maxDelayMillis < baseDelayMillis) {
+            throw new IllegalArgumentException("Invalid retry delays");
+        }
+        this.maxAttempts = maxAttempts;
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+    }
+
+    /**
+     * Gets the total number of attempts.
+     *
+     * @return The maximum attempts, including the first.
+     */
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /**
+     * Gets the largest bound on a delay computed by the policy itself.
+     *
+     * @return The cap on the exponential delay in milliseconds.
+     */
+    public long maxDelayMillis() {
+        return maxDelayMillis;
+    }
+
+    /**
+     * Checks whether a status code is worth retrying: 429 Too Many Requests and all
+     * 5xx server errors.
+     *
+     * @param statusCode The HTTP status code.
+     * @return {@code true} if the request may succeed when retried.
+     */
+    public static boolean isRetryable(int statusCode) {
+        return statusCode == 429 || statusCode >= 500;
+    }
+
+    /**
+     * Computes the delay before the next attempt.
+     *
+     * @param attempt          The number of attempts made so far, starting at 1.
+     * @param retryAfterMillis The delay requested by the server, or -1.
+     * @return The delay in milliseconds.
+     */
+    public long delayMillis(int attempt, long retryAfterMillis) {
+        int shift = Math.min(attempt - 1, 62);
+        // compare before shifting, so that large attempt counts cannot overflow
+        long bound = baseDelayMillis > maxDelayMillis >> shift ? maxDelayMillis : baseDelayMillis << shift;
+        long delay = bound > 0 ? ThreadLocalRandom.current().nextLong(bound + 1) : 0;
+        return Math.max(delay, retryAfterMillis);
+    }
+}
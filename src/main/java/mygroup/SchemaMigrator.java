@@ -0,0 +1,198 @@
+package mygroup;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.logging.Logger;
+
+/**
+ * Brings the database schema up to date. Each migration has a version number and is
+ * applied once, in order; the applied versions are recorded in a {@code schema_version}
+ * table. MySQL commits DDL statements implicitly, so a migration that fails halfway
+ * is not rolled back and has to be finished by hand before the program is run again.
+ * Migrations that use MySQL-only syntax, such as partitioning, are recorded without
+ * being executed on other databases.
+ */
+public class SchemaMigrator {
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * One step of the schema history.
+     *
+     * @param version     The version the schema has after this step.
+     * @param description A short description, stored with the version.
+     * @param statements  The SQL statements, executed in order.
+     * @param mysqlOnly   Whether the statements are only executed on MySQL.
+     */
+    public record Migration(int version, String description, List<String> statements, boolean mysqlOnly) {
+
+        /**
+         * Constructs a migration that runs on every database.
+         *
+         * @param version     The version the schema has after this step.
+         * @param description A short description, stored with the version.
+         * @param statements  The SQL statements, executed in order.
+         */
+        public Migration(int version, String description, List<String> statements) {
+            this(version, description, statements, false);
+        }
+    }
+
+    private static final String CREATE_SCHEMA_VERSION =
+                            "CREATE TABLE IF NOT EXISTS schema_version (" +
+                            "version INT NOT NULL PRIMARY KEY, " +
+                            "description VARCHAR(255) NOT NULL, " +
+                            "applied_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP)";
+
+    /**
+     * The schema history of the games database.
+     */
+    static final List<Migration> MIGRATIONS = List.of(
+        new Migration(1, "games table", List.of(
+            "CREATE TABLE IF NOT EXISTS games (" +
+            "id INT AUTO_INCREMENT PRIMARY KEY, " +
+            "name VARCHAR(255), " +
+            "minutes_played VARCHAR(50), " +
+            "last_played_hours VARCHAR(50), " +
+            "genres VARCHAR(255) DEFAULT 'Unknown', " +
+            "UNIQUE (name))")),
+        new Migration(2, "numeric playtime columns", List.of(
+            // hours used to be formatted with the default locale's decimal separator
+            "UPDATE games SET last_played_hours = REPLACE(last_played_hours, ',', '.')",
+            "UPDATE games SET last_played_hours = NULL WHERE last_played_hours = 'Never played' OR last_played_hours = ''",
+            "UPDATE games SET minutes_played = '0' WHERE minutes_played IS NULL OR minutes_played = ''",
+            "ALTER TABLE games MODIFY minutes_played INT NOT NULL DEFAULT 0",
+            "ALTER TABLE games MODIFY last_played_hours DECIMAL(12,2) NULL")),
+        new Migration(3, "genre_totals aggregate", List.of(
+            "DROP TABLE IF EXISTS genre_totals",
+            "CREATE TABLE genre_totals (" +
+            "genre VARCHAR(255) NOT NULL PRIMARY KEY, " +
+            "minutes_played BIGINT NOT NULL, " +
+            "games INT NOT NULL, " +
+            "INDEX idx_genre_totals_rank (minutes_played DESC, genre, games))",
+            "INSERT INTO genre_totals (genre, minutes_played, games) " +
+            "SELECT COALESCE(genres, 'Unknown'), SUM(minutes_played), COUNT(*) " +
+            "FROM games GROUP BY COALESCE(genres, 'Unknown')")),
+        new Migration(4, "report indexes", List.of(
+            "CREATE INDEX idx_games_minutes_name ON games (minutes_played DESC, name)",
+            "CREATE INDEX idx_games_genre_minutes ON games (genres, minutes_played)")),
+        new Migration(5, "per-user tables", List.of(
+            "CREATE TABLE IF NOT EXISTS user_games (" +
+            "steam_id BIGINT NOT NULL, " +
+            "app_id INT NOT NULL, " +
+            "name VARCHAR(255) NOT NULL, " +
+            "minutes_played INT NOT NULL DEFAULT 0, " +
+            "last_played_hours DECIMAL(12,2) NULL, " +
+            "genres VARCHAR(255) NOT NULL DEFAULT 'Unknown', " +
+            "PRIMARY KEY (steam_id, app_id), " +
+            "INDEX idx_user_games_name_minutes (name, minutes_played))",
+            "CREATE TABLE IF NOT EXISTS user_genre_totals (" +
+            "steam_id BIGINT NOT NULL, " +
+            "genre VARCHAR(255) NOT NULL, " +
+            "minutes_played BIGINT NOT NULL, " +
+            "games INT NOT NULL, " +
+            "PRIMARY KEY (steam_id, genre))")),
+        new Migration(6, "partition per-user tables by account", List.of(
+            "ALTER TABLE user_games PARTITION BY KEY (steam_id) PARTITIONS 16",
+            "ALTER TABLE user_genre_totals PARTITION BY KEY (steam_id) PARTITIONS 16"), true),
+        new Migration(7, "playtime history and rollups", List.of(
+            "CREATE TABLE IF NOT EXISTS playtime_history (" +
+            "id BIGINT AUTO_INCREMENT PRIMARY KEY, " +
+            "recorded_at TIMESTAMP NOT NULL, " +
+            "steam_id BIGINT NOT NULL, " +
+            "app_id INT NOT NULL, " +
+            "name VARCHAR(255) NOT NULL, " +
+            "genre VARCHAR(255) NOT NULL, " +
+            "minutes_delta INT NOT NULL, " +
+            "INDEX idx_playtime_history_recorded (recorded_at))",
+            "CREATE TABLE IF NOT EXISTS playtime_daily (" +
+            "played_on DATE NOT NULL, " +
+            "steam_id BIGINT NOT NULL, " +
+            "genre VARCHAR(255) NOT NULL, " +
+            "minutes_played BIGINT NOT NULL, " +
+            "PRIMARY KEY (played_on, steam_id, genre))",
+            "CREATE TABLE IF NOT EXISTS playtime_weekly (" +
+            "week_of DATE NOT NULL, " +
+            "steam_id BIGINT NOT NULL, " +
+            "genre VARCHAR(255) NOT NULL, " +
+            "minutes_played BIGINT NOT NULL, " +
+            "PRIMARY KEY (week_of, steam_id, genre))")));
+
+    private final List<Migration> migrations;
+
+    /**
+     * Constructs a migrator for the games database.
+     */
+    public SchemaMigrator() {
+        this(MIGRATIONS);
+    }
+
+    /**
+     * Constructs a migrator for the given history.
+     *
+     * @param migrations The migrations in ascending version order.
+     */
+    public SchemaMigrator(List<Migration> migrations) {
+        for (int i = 1; i < migrations.size(); i++) {
+            if (migrations.get(i).version() <= migrations.get(i - 1).version()) {
+                throw new IllegalArgumentException("Migrations must be in ascending version order");
+            }
+        }
+        this.migrations = migrations;
+    }
+
+    /**
+     * Applies every migration newer than the recorded schema version.
+     *
+     * @param conn An open connection in autocommit mode.
+     * @return The number of migrations applied.
+     * @throws SQLException If a migration fails. Later migrations are not attempted.
+     */
+    public int migrate(Connection conn) throws SQLException {
+        int current = currentVersion(conn);
+        boolean mysql = "MySQL".equalsIgnoreCase(conn.getMetaData().getDatabaseProductName());
+        int applied = 0;
+        for (Migration migration : migrations) {
+            if (migration.version() <= current) {
+                continue;
+            }
+            if (migration.mysqlOnly() && !mysql) {
+                logger.info("Skipping MySQL-only schema migration " + migration.version() + ": " + migration.description());
+            } else {
+                logger.info("Applying schema migration " + migration.version() + ": " + migration.description());
+                try (Statement statement = conn.createStatement()) {
+                    for (String sql : migration.statements()) {
+                        statement.execute(sql);
+                    }
+                }
+            }
+            try (PreparedStatement record = conn.prepareStatement(
+                    "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                record.setInt(1, migration.version());
+                record.setString(2, migration.description());
+                record.executeUpdate();
+            }
+            applied++;
+        }
+        return applied;
+    }
+
+    /**
+     * Creates the version table if needed and reads the latest applied version.
+     *
+     * @param conn An open connection.
+     * @return The schema version, or 0 for a database that has never been migrated.
+     * @throws SQLException If the version table cannot be read.
+     */
+    int currentVersion(Connection conn) throws SQLException {
+        try (Statement statement = conn.createStatement()) {
+            statement.execute(CREATE_SCHEMA_VERSION);
+            try (ResultSet rs = statement.executeQuery("SELECT MAX(version) FROM schema_version")) {
+                rs.next();
+                return rs.getInt(1);
+            }
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package mygroup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+
+/**
+ * Reads optional runtime settings. A key such as {@code fetch.concurrency} is looked up
+ * first as the system property {@code gamemanager.fetch.concurrency} and then as the
+ * environment variable {@code GAMEMANAGER_FETCH_CONCURRENCY}. When neither is set the
+ * supplied default is used.
+ */
+public final class Settings {
+    private static final String PREFIX = "gamemanager.";
+
+    private Settings() {}
+
+    /**
+     * Looks up a setting as a string.
+     *
+     * @param key The setting key without the {@code gamemanager.} prefix.
+     * @param def The value to return when the setting is absent.
+     * @return The configured value, or {@code def}.
+     */
+    public static String get(String key, String def) {
+        String value = System.getProperty(PREFIX + key);
+        if (value == null) {
+            value = System.getenv((PREFIX + key).replace('.', '_').toUpperCase());
+        }
+        return (value == null || value.isBlank()) ? def : value.strip();
+    }
+
+    /**
+     * Looks up a setting as an int.
+     *
+     * @param key The setting key without the {@code gamemanager.} prefix.
+     * @param def The value to return when the setting is absent.
+     * @return The configured value, or {@code def}.
+     */
+    public static int getInt(String key, int def) {
+        String value = get(key, null);
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid integer for setting " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Looks up a setting as a long.
+     *
+     * @param key The setting key without the {@code gamemanager.} prefix.
+     * @param def The value to return when the setting is absent.
+     * @return The configured value, or {@code def}.
+     */
+    public static long getLong(String key, long def) {
+        String value = get(key, null);
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Long.parseLong(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for setting " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Looks up a setting as a double.
+     *
+     * @param key The setting key without the {@code gamemanager.} prefix.
+     * @param def The value to return when the setting is absent.
+     * @return The configured value, or {@code def}.
+     */
+    public static double getDouble(String key, double def) {
+        String value = get(key, null);
+        if (value == null) {
+            return def;
+        }
+        try {
+            return Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid number for setting " + key + ": " + value);
+        }
+    }
+
+    /**
+     * Looks up a setting as a boolean ({@code true} ignoring case, anything else is false).
+     *
+     * @param key The setting key without the {@code gamemanager.} prefix.
+     * @param def The value to return when the setting is absent.
+     * @return The configured value, or {@code def}.
+     */
+    public static boolean getBoolean(String key, boolean def) {
+        String value = get(key, null);
+        return value == null ? def : Boolean.parseBoolean(value);
+    }
+
+    /**
+     * Opens the file named by a setting or, when the setting is absent, a resource on
+     * the classpath. This lets the input files be replaced without rebuilding.
+     *
+     * @param key      The setting key without the {@code gamemanager.} prefix.
+     * @param resource The resource name to fall back to.
+     * @return The open stream, or {@code null} if the setting is absent and there is
+     *         no such resource.
+     */
+    public static InputStream openFileOrResource(String key, String resource) {
+        String file = get(key, null);
+        if (file == null) {
+            return Settings.class.getClassLoader().getResourceAsStream(resource);
+        }
+        try {
+            return Files.newInputStream(Path.of(file));
+        } catch (IOException e) {
+            AppLogger.get().log(Level.FINE, "Error reading " + file, e);
+            throw new RuntimeException("Error reading " + file);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package mygroup;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Extracts games from a JSON document using Jackson's streaming {@link JsonParser}.
+ * Only the fields on the path to the game array and the requested keys of each
+ * element are read; everything else is skipped without being materialized, so
+ * memory use does not grow with the size of the document.
+ * The values produced match {@code JsonNode.path(key).asText()} in {@code Client}.
+ */
+public class StreamingGameParser {
+    private final JsonFactory jsonFactory;
+
+    /**
+     * Constructs a parser that creates its {@link JsonParser}s from the given factory.
+     *
+     * @param jsonFactory The factory to use, typically {@code objectMapper.getFactory()}.
+     */
+    public StreamingGameParser(JsonFactory jsonFactory) {
+        this.jsonFactory = jsonFactory;
+    }
+
+    /**
+     * Parses a JSON document and emits a {@code Game} for every element of the array
+     * found at {@code pathToRoot}.
+     *
+     * @param in         The JSON document. The stream is closed when parsing ends.
+     * @param pathToRoot The field names leading from the root object to the game array.
+     * @param jsonKeys   The keys holding the name, minutes played and last played epoch,
+     *                   optionally followed by the key holding the app id.
+     * @param sink       Receives each game as soon as its element has been read.
+     * @return The number of games emitted.
+     * @throws IOException If the document cannot be read or is not valid JSON.
+     */
+    public int parse(InputStream in, String[] pathToRoot, String[] jsonKeys, Consumer<Game> sink) throws IOException {
+        if (jsonKeys.length != 3 && jsonKeys.length != 4) {
+            throw new IllegalArgumentException("Expected three or four JSON keys (name, minutes played, last played, app id)");
+        }
+        int count = 0;
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (!seekArray(parser, pathToRoot)) {
+                return 0;
+            }
+            String[] values = new String[jsonKeys.length];
+            while (parser.nextToken() != JsonToken.END_ARRAY) {
+                Arrays.fill(values, "");
+                if (parser.currentToken() == JsonToken.START_OBJECT) {
+                    readElement(parser, jsonKeys, values);
+                } else {
+                    parser.skipChildren();
+                }
+                sink.accept(values.length == 4
+                    ? new Game(values[0], values[1], values[2], values[3])
+                    : new Game(values[0], values[1], values[2]));
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Advances the parser to the start of the array at the end of {@code pathToRoot}.
+     *
+     * @return {@code true} if the parser is positioned on a {@code START_ARRAY} token.
+     */
+    private static boolean seekArray(JsonParser parser, String[] pathToRoot) throws IOException {
+        JsonToken token = parser.nextToken();
+        for (String path : pathToRoot) {
+            if (token != JsonToken.START_OBJECT || !seekField(parser, path)) {
+                return false;
+            }
+            token = parser.nextToken();
+        }
+        return token == JsonToken.START_ARRAY;
+    }
+
+    /**
+     * Moves through the fields of the current object until {@code name} is found,
+     * leaving the parser on that field name.
+     *
+     * @return {@code false} if the object ends without containing the field.
+     */
+    private static boolean seekField(JsonParser parser, String name) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            if (name.equals(parser.currentName())) {
+                return true;
+            }
+            parser.nextToken();
+            parser.skipChildren();
+        }
+        return false;
+    }
+
+    /**
+     * Reads one array element, copying the scalar values of the requested keys into
+     * {@code values}. Nested values are skipped and, like {@code asText()}, yield "".
+     */
+    private static void readElement(JsonParser parser, String[] jsonKeys, String[] values) throws IOException {
+        while (parser.nextToken() == JsonToken.FIELD_NAME) {
+            String field = parser.currentName();
+            JsonToken value = parser.nextToken();
+            if (value.isStructStart()) {
+                parser.skipChildren();
+                continue;
+            }
+            for (int i = 0; i < jsonKeys.length; i++) {
+                if (jsonKeys[i].equals(field)) {
+                    values[i] = parser.getText();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package mygroup;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Remembers a 64-bit fingerprint of every game written to the database so that
+ * later runs can skip games whose name, minutes played, last played epoch and
+ * genre have not changed. The state is kept in a small binary file next to the program.
+ * Games with an app id are tracked per account and app, others by name.
+ */
+public class SyncState {
+    private static final int MAGIC = 0x47534E31; // "GSN1"
+    private final Path file;
+    private final Map<String,Long> fingerprints;
+    private static final Logger logger = AppLogger.get();
+
+    /**
+     * The outcome of comparing a game against the stored state.
+     */
+    public enum Change { INSERTED, UPDATED, UNCHANGED }
+
+    /**
+     * Constructs a SyncState that is only kept in memory. Loading and saving do nothing,
+     * so the first refresh of a process writes every game and later ones only changes.
+     */
+    public SyncState() {
+        this(null);
+    }
+
+    /**
+     * Constructs a SyncState backed by the given file. Call {@link #load()} to read it.
+     *
+     * @param file The state file.
+     */
+    public SyncState(Path file) {
+        this.file = file;
+        this.fingerprints = new HashMap<String,Long>();
+    }
+
+    /**
+     * Reads the state file. A missing file is treated as an empty state, so the
+     * first run writes every game.
+     *
+     * @throws IOException If the file exists but cannot be read.
+     */
+    public void load() throws IOException {
+        if (file == null) {
+            return;
+        }
+        fingerprints.clear();
+        if (!Files.exists(file)) {
+            logger.info("No sync state found at " + file + ", all games will be written");
+            return;
+        }
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Unrecognized sync state file: " + file);
+            }
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String name = in.readUTF();
+                fingerprints.put(name, in.readLong());
+            }
+        }
+    }
+
+    /**
+     * Writes the state to a temporary file and moves it over the state file, so an
+     * interrupted save never leaves a truncated file behind.
+     *
+     * @throws IOException If the file cannot be written.
+     */
+    public void save() throws IOException {
+        if (file == null) {
+            return;
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(fingerprints.size());
+            for (Map.Entry<String,Long> entry : fingerprints.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeLong(entry.getValue());
+            }
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Compares a game against the stored fingerprint without recording it.
+     *
+     * @param game  The incoming game.
+     * @param genre The genre the game would be written with.
+     * @return Whether the game is new, changed or unchanged since it was last recorded.
+     */
+    public Change classify(Game game, String genre) {
+        Long previous = fingerprints.get(key(game));
+        if (previous == null) {
+            return Change.INSERTED;
+        }
+        return previous == fingerprint(game, genre) ? Change.UNCHANGED : Change.UPDATED;
+    }
+
+    /**
+     * Records the current fingerprint of a game after it has been written.
+     *
+     * @param game  The written game.
+     * @param genre The genre it was written with.
+     */
+    public void record(Game game, String genre) {
+        fingerprints.put(key(game), fingerprint(game, genre));
+    }
+
+    private static String key(Game game) {
+        return game.getAppId() == 0 ? game.getName() : game.getSteamId() + ":" + game.getAppId();
+    }
+
+    /**
+     * Computes a 64-bit FNV-1a hash over the name, minutes played, the original last
+     * played epoch and the genre, so that a game whose genre mapping changed is written
+     * again. The derived hours since last played are deliberately left out because
+     * they change on every run.
+     *
+     * @param game  The game to fingerprint.
+     * @param genre The genre of the game.
+     * @return The fingerprint.
+     */
+    static long fingerprint(Game game, String genre) {
+        long hash = 0xcbf29ce484222325L;
+        hash = mix(hash, game.getName());
+        hash = mix(hash, game.getMP());
+        hash = mix(hash, game.getLastPlayedRaw());
+        return mix(hash, genre);
+    }
+
+    private static long mix(long hash, String value) {
+        for (int i = 0; i < value.length(); i++) {
+            hash ^= value.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        // field separator so ("ab","c") and ("a","bc") differ
+        hash ^= 0xff;
+        return hash * 0x100000001b3L;
+    }
+}
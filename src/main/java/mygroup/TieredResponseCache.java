@@ -0,0 +1,39 @@
+package mygroup;
+
+/**
+ * A {@link ResponseCache} that puts a bounded in-memory tier in front of a
+ * persistent tier. Hits in the persistent tier are promoted to memory.
+ */
+public class TieredResponseCache implements ResponseCache {
+    private final ResponseCache memory;
+    private final ResponseCache persistent;
+
+    /**
+     * Constructs a two-tier cache.
+     *
+     * @param memory     The fast, bounded tier that is checked first.
+     * @param persistent The slower tier that survives restarts.
+     */
+    public TieredResponseCache(ResponseCache memory, ResponseCache persistent) {
+        this.memory = memory;
+        this.persistent = persistent;
+    }
+
+    @Override
+    public CachedResponse get(String url) {
+        CachedResponse response = memory.get(url);
+        if (response == null) {
+            response = persistent.get(url);
+            if (response != null) {
+                memory.put(url, response);
+            }
+        }
+        return response;
+    }
+
+    @Override
+    public void put(String url, CachedResponse response) {
+        memory.put(url, response);
+        persistent.put(url, response);
+    }
+}
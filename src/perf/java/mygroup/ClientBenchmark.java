@@ -0,0 +1,102 @@
+package mygroup;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Parsing benchmarks: tree traversal, the full readTree + traversal path, the fused
+ * extract-and-transform stage and the streaming parser, all over the same synthetic
+ * response, and loading the same games from a binary snapshot.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ClientBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private Client client;
+    private ObjectMapper objectMapper;
+    private StreamingGameParser streamingParser;
+    private String json;
+    private byte[] jsonBytes;
+    private JsonNode root;
+    private JsonNode array;
+    private Path snapshot;
+
+    @Setup
+    public void setup() throws IOException {
+        AppLogger.get().setLevel(Level.WARNING);
+        client = new Client(1, false);
+        objectMapper = new ObjectMapper();
+        streamingParser = new StreamingGameParser(objectMapper.getFactory());
+        json = SyntheticLibrary.json(SyntheticLibrary.table(size));
+        jsonBytes = json.getBytes(StandardCharsets.UTF_8);
+        root = objectMapper.readTree(json);
+        array = root;
+        for (String path : SyntheticLibrary.PATH_TO_ROOT) {
+            array = array.path(path);
+        }
+        snapshot = Files.createTempFile("games", ".snapshot");
+        new GameSnapshot(SyntheticLibrary.NOW, SyntheticLibrary.table(size)).write(snapshot);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(snapshot);
+    }
+
+    @Benchmark
+    public List<Game> traversal() {
+        return client.traversal(root, SyntheticLibrary.PATH_TO_ROOT, SyntheticLibrary.JSON_KEYS);
+    }
+
+    @Benchmark
+    public List<Game> fusedExtract() {
+        return new GameTransform(SyntheticLibrary.NOW, Integer.MAX_VALUE).extract(array, SyntheticLibrary.JSON_KEYS);
+    }
+
+    @Benchmark
+    public List<Game> fusedExtractParallel() {
+        return new GameTransform(SyntheticLibrary.NOW, 1).extract(array, SyntheticLibrary.JSON_KEYS);
+    }
+
+    @Benchmark
+    public List<Game> readTreeAndTraversal() throws IOException {
+        return client.traversal(objectMapper.readTree(json), SyntheticLibrary.PATH_TO_ROOT, SyntheticLibrary.JSON_KEYS);
+    }
+
+    @Benchmark
+    public List<Game> snapshotRead() throws IOException {
+        return GameSnapshot.read(snapshot).toGames();
+    }
+
+    @Benchmark
+    public int streamingParse(Blackhole blackhole) throws IOException {
+        return streamingParser.parse(new ByteArrayInputStream(jsonBytes),
+            SyntheticLibrary.PATH_TO_ROOT, SyntheticLibrary.JSON_KEYS, blackhole::consume);
+    }
+}
@@ -0,0 +1,100 @@
+package mygroup;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the JDBC stages against an in-memory H2 database in MySQL mode, which
+ * stands in for MySQL. The numbers show client-side and driver overhead; network
+ * round trips to a real server are not included.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DatabaseBenchmark {
+    @Param({"1000", "10000", "100000"})
+    public int size;
+
+    @Param({"1", "500"})
+    public int batchSize;
+
+    private Connection conn;
+    private ConnectionPool pool;
+    private DatabaseManager dbm;
+    private File resultFile;
+
+    @Setup
+    public void setup() throws SQLException, IOException {
+        AppLogger.get().setLevel(Level.WARNING);
+        GameTable table = SyntheticLibrary.table(size);
+        Client client = new Client(1, false);
+        client.getGameList().addAll(SyntheticLibrary.processedGames(table));
+        GenreMap genreMap = new GenreMap(client.getGameList(), false);
+        genreMap.addFrom(new ByteArrayInputStream(SyntheticLibrary.genreFile(table, size)));
+        dbm = new DatabaseManager(client, genreMap, batchSize);
+
+        String url = "jdbc:h2:mem:bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE";
+        conn = DriverManager.getConnection(url, "sa", "");
+        pool = new ConnectionPool(url, "sa", new char[0], 2);
+        try (Statement statement = conn.createStatement()) {
+            statement.execute("DROP TABLE IF EXISTS games");
+            statement.execute("DROP TABLE IF EXISTS genre_totals");
+            statement.execute("DROP TABLE IF EXISTS user_games");
+            statement.execute("DROP TABLE IF EXISTS user_genre_totals");
+            statement.execute("DROP TABLE IF EXISTS playtime_history");
+            statement.execute("DROP TABLE IF EXISTS playtime_daily");
+            statement.execute("DROP TABLE IF EXISTS playtime_weekly");
+            statement.execute("DROP TABLE IF EXISTS schema_version");
+        }
+        dbm.prepareSchema(conn);
+        dbm.insertData(conn);
+        resultFile = File.createTempFile("result", ".json");
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        pool.close();
+        conn.close();
+        resultFile.delete();
+    }
+
+    @Benchmark
+    public void insertData() {
+        dbm.insertData(conn);
+    }
+
+    @Benchmark
+    public void selectData() throws IOException, InterruptedException {
+        try (ResultSink sink = new JsonResultSink(resultFile)) {
+            dbm.selectData(pool, sink);
+        }
+    }
+
+    @Benchmark
+    public void selectDataNdjson() throws IOException, InterruptedException {
+        try (ResultSink sink = new NdjsonResultSink(resultFile)) {
+            dbm.selectData(pool, sink);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package mygroup;
+import java.io.ByteArrayInputStream;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks genre resolution over a synthetic game_genres.txt.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GenreMapBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    @Param({"200000"})
+    public int genreLines;
+
+    @Param({"false", "true"})
+    public boolean normalize;
+
+    private GameTable table;
+    private byte[] genreFile;
+
+    @Setup
+    public void setup() {
+        AppLogger.get().setLevel(Level.WARNING);
+        table = SyntheticLibrary.table(size);
+        genreFile = SyntheticLibrary.genreFile(table, genreLines);
+    }
+
+    @Benchmark
+    public Map<String,String> addFromResource() {
+        GenreMap genreMap = new GenreMap(SyntheticLibrary.processedGames(table), normalize);
+        genreMap.addFrom(new ByteArrayInputStream(genreFile));
+        return genreMap.getMap();
+    }
+}
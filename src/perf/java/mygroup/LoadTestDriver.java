@@ -0,0 +1,136 @@
+package mygroup;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Runs the complete {@link Application} pipeline against a {@link MockSteamServer} and an
+ * in-memory H2 database in MySQL mode, then reports the end-to-end throughput and the
+ * p50/p99 latency of every stage. The run is configured by {@code loadtest.*} settings:
+ * <ul>
+ *   <li>{@code loadtest.mode}: {@code crawl} (default) crawls the accounts through an IDs
+ *       file, {@code oneshot} lists one urls.txt line per account and runs once.</li>
+ *   <li>{@code loadtest.accounts}: number of accounts (default 200).</li>
+ *   <li>{@code loadtest.librarySize}: games per account (default 500).</li>
+ *   <li>{@code loadtest.latencyMillis} and {@code loadtest.jitterMillis}: server latency
+ *       (defaults 20 and 30).</li>
+ *   <li>{@code loadtest.rateLimitRate} and {@code loadtest.errorRate}: fractions of
+ *       requests answered with 429 and 503 (defaults 0.02 and 0.01).</li>
+ * </ul>
+ * Every other setting is passed on to the pipeline. Unless set otherwise the games are
+ * stored per account ({@code db.multiTenant}) in batches of 500, and the crawler sends
+ * up to 1000 requests per second over 32 workers.
+ *
+ * <pre>
+ * mvn -Pperf package -DskipTests
+ * java -cp target/benchmarks.jar -Dgamemanager.loadtest.accounts=1000 mygroup.LoadTestDriver
+ * </pre>
+ */
+final class LoadTestDriver {
+    private static final String PREFIX = "gamemanager.";
+
+    private LoadTestDriver() {}
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        String mode = Settings.get("loadtest.mode", "crawl");
+        if (!mode.equals("crawl") && !mode.equals("oneshot")) {
+            throw new IllegalArgumentException("loadtest.mode must be crawl or oneshot");
+        }
+        int accounts = Settings.getInt("loadtest.accounts", 200);
+        int librarySize = Settings.getInt("loadtest.librarySize", 500);
+        Path dir = Files.createTempDirectory("gamemanager-loadtest");
+        try (MockSteamServer server = new MockSteamServer(0, librarySize,
+                Settings.getLong("loadtest.latencyMillis", 20), Settings.getLong("loadtest.jitterMillis", 30),
+                Settings.getDouble("loadtest.rateLimitRate", 0.02), Settings.getDouble("loadtest.errorRate", 0.01))) {
+            prepare(dir, server, mode, accounts);
+            Metrics.reset();
+            long start = System.nanoTime();
+            Application.main(new String[0]);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            report(mode, accounts, seconds, server);
+        } finally {
+            try (var files = Files.list(dir)) {
+                for (Path file : files.toList()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+            Files.deleteIfExists(dir);
+        }
+    }
+
+    /**
+     * Writes the input files for the run and points the pipeline at them.
+     */
+    private static void prepare(Path dir, MockSteamServer server, String mode, int accounts) throws IOException {
+        String keys = " response-games name,playtime_forever,rtime_last_played,appid";
+        List<String> ids = new ArrayList<String>(accounts);
+        for (int i = 0; i < accounts; i++) {
+            ids.add(Long.toString(76_561_197_960_265_728L + i));
+        }
+        Path urls = dir.resolve("urls.txt");
+        if (mode.equals("crawl")) {
+            Files.writeString(urls, server.url(ids.get(0)) + keys + "\n", StandardCharsets.UTF_8);
+            Path idsFile = Files.write(dir.resolve("ids.txt"), ids, StandardCharsets.UTF_8);
+            setDefault("crawl.idsFile", idsFile.toString());
+        } else {
+            List<String> lines = new ArrayList<String>(accounts);
+            for (String id : ids) {
+                lines.add(server.url(id) + keys);
+            }
+            Files.write(urls, lines, StandardCharsets.UTF_8);
+            setDefault("fetch.concurrency", "32");
+        }
+        StringBuilder genres = new StringBuilder();
+        for (int appId = 1; appId <= MockSteamServer.CATALOG_SIZE; appId++) {
+            genres.append(MockSteamServer.gameName(appId)).append('%')
+                .append(SyntheticLibrary.GENRES[appId % SyntheticLibrary.GENRES.length]).append('\n');
+        }
+        Path genresFile = Files.writeString(dir.resolve("game_genres.txt"), genres, StandardCharsets.UTF_8);
+        Path config = Files.writeString(dir.resolve("config.txt"),
+            "jdbc:h2:mem:loadtest;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1\n", StandardCharsets.UTF_8);
+
+        setDefault("urls.file", urls.toString());
+        setDefault("genres.file", genresFile.toString());
+        setDefault("config.file", config.toString());
+        setDefault("result.file", dir.resolve("result.json").toString());
+        setDefault("db.user", "sa");
+        setDefault("db.password", "loadtest");
+        setDefault("db.multiTenant", "true");
+        setDefault("db.batchSize", "500");
+        setDefault("crawl.ratePerSecond", "1000");
+        setDefault("crawl.burst", "100");
+        setDefault("crawl.workers", "32");
+        setDefault("crawl.retryBaseMillis", "100");
+    }
+
+    private static void setDefault(String key, String value) {
+        if (Settings.get(key, null) == null) {
+            System.setProperty(PREFIX + key, value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void report(String mode, int accounts, double seconds, MockSteamServer server) {
+        Map<String,Object> snapshot = Metrics.snapshot();
+        Map<String,Map<String,Object>> stages = (Map<String,Map<String,Object>>) snapshot.get("stages");
+        Map<String,Long> counters = (Map<String,Long>) snapshot.get("counters");
+        long rows = counters.getOrDefault("insert_rows", 0L);
+        System.out.printf("%n%s of %d accounts in %.2f s: %.1f accounts/s, %.0f games written/s%n",
+            mode, accounts, seconds, accounts / seconds, rows / seconds);
+        System.out.printf("server: %d requests, %d answered 429, %d answered 503%n",
+            server.requests(), server.rateLimited(), server.errors());
+        System.out.printf("%-16s %8s %10s %10s %10s%n", "stage", "count", "p50 ms", "p99 ms", "max ms");
+        stages.entrySet().stream().sorted(Map.Entry.comparingByKey()).forEach(e -> {
+            Map<String,Object> stage = e.getValue();
+            System.out.printf("%-16s %8d %10.2f %10.2f %10.2f%n", e.getKey(), (Long) stage.get("count"),
+                1000 * (Double) stage.get("p50_seconds"), 1000 * (Double) stage.get("p99_seconds"),
+                1000 * (Double) stage.get("max_seconds"));
+        });
+        counters.entrySet().stream().sorted(Map.Entry.comparingByKey())
+            .forEach(e -> System.out.printf("%-24s %d%n", e.getKey(), e.getValue()));
+    }
+}
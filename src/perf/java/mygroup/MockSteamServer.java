@@ -0,0 +1,222 @@
+package mygroup;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPOutputStream;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * A local stand-in for the Steam Web API's GetOwnedGames endpoint, so that the whole
+ * pipeline can be exercised without a Steam key. Every path answers with a
+ * {@code response.games} document for the {@code steamid} query parameter. The library
+ * of an account is generated from its Steam ID, so repeated requests return the same
+ * games, and accounts draw from a shared catalog, so they own overlapping games.
+ *
+ * <p>Each request first waits for the configured latency. A fraction of the requests is
+ * then answered with {@code 429 Too Many Requests} and {@code Retry-After: 1}, and a
+ * further fraction with {@code 503 Service Unavailable}. Libraries are sent gzip
+ * compressed when the request accepts it.
+ *
+ * <pre>
+ * java -cp target/benchmarks.jar mygroup.MockSteamServer 8080
+ * </pre>
+ */
+final class MockSteamServer implements AutoCloseable {
+    /** Number of distinct games the libraries are drawn from. */
+    static final int CATALOG_SIZE = 5_000;
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final int librarySize;
+    private final long latencyMillis;
+    private final long jitterMillis;
+    private final double rateLimitRate;
+    private final double errorRate;
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder rateLimited = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Starts a server on the loopback interface.
+     *
+     * @param port          The port, or 0 for any free port.
+     * @param librarySize   The number of games per account, at most {@link #CATALOG_SIZE}.
+     * @param latencyMillis The minimum time before each answer.
+     * @param jitterMillis  The largest random time added to the latency.
+     * @param rateLimitRate The fraction of requests answered with 429.
+     * @param errorRate     The fraction of requests answered with 503.
+     * @throws IOException If the port cannot be bound.
+     */
+    MockSteamServer(int port, int librarySize, long latencyMillis, long jitterMillis,
+            double rateLimitRate, double errorRate) throws IOException {
+        if (librarySize < 0 || librarySize > CATALOG_SIZE) {
+            throw new IllegalArgumentException("Library size must be between 0 and " + CATALOG_SIZE);
+        }
+        this.librarySize = librarySize;
+        this.latencyMillis = latencyMillis;
+        this.jitterMillis = jitterMillis;
+        this.rateLimitRate = rateLimitRate;
+        this.errorRate = errorRate;
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 0);
+        server.createContext("/", this::handle);
+        server.setExecutor(executor);
+        server.start();
+    }
+
+    /**
+     * Gets the URL of the GetOwnedGames endpoint for an account.
+     *
+     * @param steamId The Steam ID to put in the query.
+     * @return The URL.
+     */
+    String url(String steamId) {
+        return "http://127.0.0.1:" + server.getAddress().getPort()
+            + "/IPlayerService/GetOwnedGames/v0001/?key=test&steamid=" + steamId + "&include_appinfo=true&format=json";
+    }
+
+    long requests() {
+        return requests.sum();
+    }
+
+    long rateLimited() {
+        return rateLimited.sum();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.increment();
+            sleep(latencyMillis + (jitterMillis > 0 ? ThreadLocalRandom.current().nextLong(jitterMillis + 1) : 0));
+            double roll = ThreadLocalRandom.current().nextDouble();
+            if (roll < rateLimitRate) {
+                rateLimited.increment();
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                exchange.sendResponseHeaders(429, -1);
+                return;
+            }
+            if (roll < rateLimitRate + errorRate) {
+                errors.increment();
+                exchange.sendResponseHeaders(503, -1);
+                return;
+            }
+            long steamId = Client.steamIdOf(exchange.getRequestURI().toString());
+            if (steamId == 0) {
+                exchange.sendResponseHeaders(400, -1);
+                return;
+            }
+            byte[] body = library(steamId).getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "application/json");
+            String accept = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            if (accept != null && accept.contains("gzip")) {
+                body = gzip(body);
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(body);
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Renders the library of an account, in which about one game in ten has never been played.
+     *
+     * @param steamId The account.
+     * @return The JSON document.
+     */
+    String library(long steamId) {
+        Random random = new Random(steamId);
+        Set<Integer> appIds = new LinkedHashSet<Integer>();
+        while (appIds.size() < librarySize) {
+            appIds.add(1 + random.nextInt(CATALOG_SIZE));
+        }
+        StringBuilder sb = new StringBuilder(librarySize * 96);
+        sb.append("{\"response\":{\"game_count\":").append(librarySize).append(",\"games\":[");
+        boolean first = true;
+        for (int appId : appIds) {
+            int minutes = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(50_000);
+            long lastPlayed = minutes == 0 ? 0 : SyntheticLibrary.NOW - random.nextInt(2 * 365 * 24 * 3600);
+            if (!first) {
+                sb.append(',');
+            }
+            first = false;
+            sb.append("{\"appid\":").append(appId)
+                .append(",\"name\":\"").append(gameName(appId))
+                .append("\",\"playtime_forever\":").append(minutes)
+                .append(",\"img_icon_url\":\"0123456789abcdef\",\"has_community_visible_stats\":true")
+                .append(",\"rtime_last_played\":").append(lastPlayed)
+                .append('}');
+        }
+        return sb.append("]}}").toString();
+    }
+
+    /**
+     * Gets the name of a catalog game.
+     *
+     * @param appId The app id, from 1 to {@link #CATALOG_SIZE}.
+     * @return The name.
+     */
+    static String gameName(int appId) {
+        return "Game " + appId;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stops the server without waiting for open exchanges.
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     *
+     * @param args The port (default 8080), library size (500), latency in ms (50),
+     *             jitter in ms (50), 429 rate (0.02) and 503 rate (0.01).
+     * @throws IOException If the port cannot be bound.
+     */
+    public static void main(String[] args) throws IOException {
+        MockSteamServer server = new MockSteamServer(
+            args.length > 0 ? Integer.parseInt(args[0]) : 8080,
+            args.length > 1 ? Integer.parseInt(args[1]) : 500,
+            args.length > 2 ? Long.parseLong(args[2]) : 50,
+            args.length > 3 ? Long.parseLong(args[3]) : 50,
+            args.length > 4 ? Double.parseDouble(args[4]) : 0.02,
+            args.length > 5 ? Double.parseDouble(args[5]) : 0.01);
+        System.out.println("Serving GetOwnedGames at " + server.url("76561197960287930"));
+    }
+}
@@ -0,0 +1,97 @@
+package mygroup;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generates reproducible game libraries, Steam responses and genre files of any size
+ * for the benchmarks.
+ */
+final class SyntheticLibrary {
+    static final String[] PATH_TO_ROOT = {"response", "games"};
+    static final String[] JSON_KEYS = {"name", "playtime_forever", "rtime_last_played"};
+    static final String[] GENRES = {
+        "Action role-playing", "Action-adventure", "Survival horror", "First-person shooter",
+        "Party", "Roguelike", "Strategy", "Racing", "Puzzle", "Simulation"
+    };
+    static final long NOW = 1_760_000_000L;
+
+    private SyntheticLibrary() {}
+
+    /**
+     * Generates a library in which about one game in ten has never been played.
+     *
+     * @param size The number of games.
+     * @return A table holding the games.
+     */
+    static GameTable table(int size) {
+        Random random = new Random(42);
+        GameTable table = new GameTable(size);
+        for (int i = 0; i < size; i++) {
+            int minutes = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(50_000);
+            long lastPlayed = minutes == 0 ? 0 : NOW - random.nextInt(2 * 365 * 24 * 3600);
+            table.add("Game " + i, minutes, lastPlayed);
+        }
+        return table;
+    }
+
+    /**
+     * Renders a library as a GetOwnedGames response body.
+     *
+     * @param table The games.
+     * @return The JSON document.
+     */
+    static String json(GameTable table) {
+        StringBuilder sb = new StringBuilder(table.size() * 96);
+        sb.append("{\"response\":{\"game_count\":").append(table.size()).append(",\"games\":[");
+        for (int row = 0; row < table.size(); row++) {
+            if (row > 0) {
+                sb.append(',');
+            }
+            sb.append("{\"appid\":").append(row)
+                .append(",\"name\":\"").append(table.name(row))
+                .append("\",\"playtime_forever\":").append(table.minutesPlayed(row))
+                .append(",\"img_icon_url\":\"0123456789abcdef\",\"has_community_visible_stats\":true")
+                .append(",\"rtime_last_played\":").append(table.lastPlayedEpoch(row))
+                .append('}');
+        }
+        return sb.append("]}}").toString();
+    }
+
+    /**
+     * Builds a game_genres.txt with a line for every game plus lines for games that
+     * are not in the library.
+     *
+     * @param table      The games.
+     * @param totalLines The number of lines, at least the library size.
+     * @return The file contents.
+     */
+    static byte[] genreFile(GameTable table, int totalLines) {
+        StringBuilder sb = new StringBuilder(totalLines * 32);
+        int lines = Math.max(totalLines, table.size());
+        for (int i = 0; i < lines; i++) {
+            String name = i < table.size() ? table.name(i) : "Other game " + i;
+            sb.append(name).append('%').append(GENRES[i % GENRES.length]).append('\n');
+        }
+        return sb.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Creates played games with hours since last played derived, as after {@code Client.run()}.
+     *
+     * @param table The games.
+     * @return The played games.
+     */
+    static List<Game> processedGames(GameTable table) {
+        List<Game> games = new ArrayList<Game>(table.size());
+        for (int row = 0; row < table.size(); row++) {
+            if (table.minutesPlayed(row) > 0) {
+                Game game = table.toGame(row);
+                game.EpochToHours(NOW);
+                games.add(game);
+            }
+        }
+        return games;
+    }
+}
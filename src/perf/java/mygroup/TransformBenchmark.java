@@ -0,0 +1,70 @@
+package mygroup;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the transform stage: the three passes it replaced (format every game,
+ * then remove the non-played ones from the list) against {@link GameTransform} run
+ * sequentially and on the common fork-join pool. The stage mutates the games, so a
+ * fresh list is built before every invocation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class TransformBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int size;
+
+    private GameTable table;
+    private List<Game> games;
+
+    @Setup(org.openjdk.jmh.annotations.Level.Trial)
+    public void setupTrial() {
+        AppLogger.get().setLevel(Level.WARNING);
+        table = SyntheticLibrary.table(size);
+    }
+
+    @Setup(org.openjdk.jmh.annotations.Level.Invocation)
+    public void setupInvocation() {
+        games = table.toGames();
+    }
+
+    @Benchmark
+    public List<Game> formatAndFilter() {
+        long currentEpoch = System.currentTimeMillis() / 1000;
+        for (Game game : games) {
+            if (game.getMinutesPlayed() == 0) {
+                game.markNeverPlayed();
+            } else {
+                game.EpochToHours(currentEpoch);
+            }
+        }
+        games.removeIf(Game::isNeverPlayed);
+        return games;
+    }
+
+    @Benchmark
+    public List<Game> fused() {
+        return new GameTransform(System.currentTimeMillis() / 1000, Integer.MAX_VALUE).apply(games);
+    }
+
+    @Benchmark
+    public List<Game> fusedParallel() {
+        return new GameTransform(System.currentTimeMillis() / 1000, 1).apply(games);
+    }
+}
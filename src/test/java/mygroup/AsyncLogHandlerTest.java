@@ -0,0 +1,43 @@
+package mygroup;
+import static org.junit.Assert.assertEquals;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import org.junit.Test;
+
+/**
+ * Tests that {@link AsyncLogHandler#flush()} waits for the writer thread.
+ */
+public class AsyncLogHandlerTest {
+
+    @Test
+    public void flushWaitsUntilPublishedRecordsAreWritten() {
+        List<LogRecord> written = new CopyOnWriteArrayList<LogRecord>();
+        Handler slow = new Handler() {
+            @Override
+            public void publish(LogRecord record) {
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                written.add(record);
+            }
+
+            @Override
+            public void flush() {}
+
+            @Override
+            public void close() {}
+        };
+        AsyncLogHandler handler = new AsyncLogHandler(slow, 1000);
+        for (int i = 0; i < 100; i++) {
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        }
+        handler.flush();
+        assertEquals(100, written.size());
+        handler.close();
+    }
+}
@@ -0,0 +1,121 @@
+package mygroup;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests which refreshes the {@link Daemon} passes on to the database stage.
+ */
+public class DaemonTest {
+
+    @Test
+    public void unchangedRefreshIsSkipped() {
+        Fixture fixture = new Fixture();
+        fixture.cycle(true, false);
+        fixture.cycle(false, false);
+        assertEquals(1, fixture.dbm.writes);
+    }
+
+    @Test
+    public void changesOfAPartialRefreshAreWrittenByTheNextOne() {
+        Fixture fixture = new Fixture();
+        fixture.cycle(true, false);
+        fixture.client.failed.add("http://example.com/?steamid=1");
+        fixture.cycle(true, false);
+        assertEquals(1, fixture.dbm.writes);
+        fixture.client.failed.clear();
+        // the new data now comes from the cache
+        fixture.cycle(false, false);
+        assertEquals(2, fixture.dbm.writes);
+        fixture.cycle(false, false);
+        assertEquals(2, fixture.dbm.writes);
+    }
+
+    @Test
+    public void changesOfAFailedWriteAreWrittenByTheNextRefresh() {
+        Fixture fixture = new Fixture();
+        fixture.cycle(true, false);
+        fixture.cycle(true, true);
+        assertEquals(2, fixture.dbm.writes);
+        fixture.cycle(false, false);
+        assertEquals(3, fixture.dbm.writes);
+        fixture.cycle(false, false);
+        assertEquals(3, fixture.dbm.writes);
+    }
+
+    private static final class Fixture {
+        final StubClient client = new StubClient();
+        final GenreMap genreMap = new StubGenreMap(client.getGameList());
+        final StubDatabaseManager dbm = new StubDatabaseManager(client, genreMap);
+        final Daemon daemon = new Daemon(client, genreMap, dbm, false, 60);
+
+        void cycle(boolean changes, boolean writeFails) {
+            client.changes = changes;
+            dbm.fail = writeFails;
+            try {
+                daemon.refresh();
+                if (writeFails) {
+                    fail("The refresh should have thrown");
+                }
+            } catch (IllegalStateException e) {
+                if (!writeFails) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private static final class StubClient extends Client {
+        final List<String> failed = new ArrayList<String>();
+        boolean changes;
+
+        StubClient() {
+            super(1, false, new MemoryResponseCache(1), 0);
+        }
+
+        @Override
+        public void run() {
+            // the game list stays as it is
+        }
+
+        @Override
+        public boolean hasChanges() {
+            return changes;
+        }
+
+        @Override
+        public List<String> getFailedUrls() {
+            return failed;
+        }
+    }
+
+    private static final class StubGenreMap extends GenreMap {
+        StubGenreMap(List<Game> gameList) {
+            super(gameList);
+        }
+
+        @Override
+        public void resolve() {
+            // no genre file in the tests
+        }
+    }
+
+    private static final class StubDatabaseManager extends DatabaseManager {
+        int writes;
+        boolean fail;
+
+        StubDatabaseManager(Client client, GenreMap genreMap) {
+            super(client, genreMap, 1);
+        }
+
+        @Override
+        public void runOffline() {
+            writes++;
+            if (fail) {
+                throw new IllegalStateException("Database unavailable");
+            }
+        }
+    }
+}
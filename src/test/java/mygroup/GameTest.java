@@ -0,0 +1,51 @@
+package mygroup;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Test;
+
+/**
+ * Tests how games are read from Steam responses with missing and null fields.
+ */
+public class GameTest {
+    private static final String[] KEYS = {"name", "playtime_forever", "rtime_last_played", "appid"};
+    private static final String GAMES = """
+        [{"appid": 10, "name": "Counter-Strike", "playtime_forever": null, "rtime_last_played": null},
+         {"appid": 20, "name": "Team Fortress Classic"},
+         {"appid": 30, "name": "Day of Defeat", "playtime_forever": 95, "rtime_last_played": null}]
+        """;
+
+    @Test
+    public void missingAndNullFieldsReadAsZero() throws IOException {
+        List<Game> games = GameTransform.extractAll(new ObjectMapper().readTree(GAMES), KEYS);
+        check(games);
+    }
+
+    @Test
+    public void streamedMissingAndNullFieldsReadAsZero() throws IOException {
+        List<Game> games = new ArrayList<Game>();
+        new StreamingGameParser(new ObjectMapper().getFactory()).parse(
+            new ByteArrayInputStream(("{\"response\": {\"games\": " + GAMES + "}}").getBytes(StandardCharsets.UTF_8)),
+            new String[] {"response", "games"}, KEYS, games::add);
+        check(games);
+    }
+
+    private static void check(List<Game> games) {
+        assertEquals(3, games.size());
+        GameTransform transform = new GameTransform(3600);
+        assertEquals(0, games.get(0).getMinutesPlayed());
+        assertFalse(transform.test(games.get(0)));
+        assertTrue(games.get(0).isNeverPlayed());
+        assertEquals(20, games.get(1).getAppId());
+        assertFalse(transform.test(games.get(1)));
+        assertEquals(95, games.get(2).getMinutesPlayed());
+        assertEquals(0, games.get(2).getLastPlayedEpoch());
+        assertTrue(transform.test(games.get(2)));
+    }
+}
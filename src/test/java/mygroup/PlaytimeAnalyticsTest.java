@@ -0,0 +1,40 @@
+package mygroup;
+import static org.junit.Assert.assertEquals;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Test;
+
+/**
+ * Tests that {@link PlaytimeAnalytics} counts names as the case-insensitive tables do.
+ */
+public class PlaytimeAnalyticsTest {
+
+    @Test
+    public void namesDifferingInCaseAreOneGame() {
+        List<Game> gameList = new ArrayList<Game>(List.of(
+            new Game("Lost Ark", 100, 0), new Game("Dota 2", 70, 0), new Game("LOST ARK", 60, 0)));
+        List<PlaytimeAnalytics.Total> games = new PlaytimeAnalytics(gameList, new GenreMap(gameList), 1).topGames();
+        assertEquals(List.of(new PlaytimeAnalytics.Total("Dota 2", 70), new PlaytimeAnalytics.Total("Lost Ark", 60)),
+            games);
+    }
+
+    @Test
+    public void genresDifferingInCaseAreOneGenre() {
+        List<Game> gameList = new ArrayList<Game>(List.of(
+            new Game("Lost Ark", 100, 0), new Game("Dota 2", 70, 0), new Game("Portal", 50, 0)));
+        GenreMap genreMap = new GenreMap(gameList);
+        genreMap.getMap().put("Lost Ark", "RPG");
+        genreMap.getMap().put("Dota 2", "Strategy");
+        genreMap.getMap().put("Portal", "rpg");
+        assertEquals(List.of(new PlaytimeAnalytics.Total("RPG", 150), new PlaytimeAnalytics.Total("Strategy", 70)),
+            new PlaytimeAnalytics(gameList, genreMap).topGenres());
+    }
+
+    @Test
+    public void tiesAreOrderedIgnoringCase() {
+        List<Game> gameList = new ArrayList<Game>(List.of(new Game("b", 10, 0), new Game("A", 10, 0), new Game("a2", 10, 0)));
+        List<String> names = new PlaytimeAnalytics(gameList, new GenreMap(gameList)).topGames().stream()
+            .map(PlaytimeAnalytics.Total::key).toList();
+        assertEquals(List.of("A", "a2", "b"), names);
+    }
+}
@@ -0,0 +1,79 @@
+package mygroup;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Tests the per-game totals of a {@link ReportSnapshot}.
+ */
+public class ReportSnapshotTest {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void crawledBatchesAreServedAsGames() throws IOException {
+        // a crawl keeps no game list and maps the genres of every batch anew
+        GenreMap genreMap = new GenreMap(new ArrayList<Game>());
+        ReportSnapshot.GameTotals totals = new ReportSnapshot.GameTotals(true);
+        genreMap.getMap().put("Lost Ark", "MMORPG");
+        totals.add(List.of(new Game(1, 10, "Lost Ark", 120, 0)), genreMap);
+        genreMap.getMap().clear();
+        genreMap.getMap().put("Dota 2", "MOBA");
+        totals.add(List.of(new Game(2, 10, "Lost Ark", 30, 0), new Game(2, 20, "Dota 2", 45, 0)), genreMap);
+
+        ReportSnapshot snapshot = recorder().build(totals);
+
+        JsonNode lostArk = game(snapshot, "Lost Ark");
+        assertEquals("MMORPG", lostArk.get("genre").asText());
+        assertEquals(150, lostArk.get("minutes_played").asLong());
+        assertEquals(2, lostArk.get("owners").asInt());
+        assertEquals("MOBA", game(snapshot, "Dota 2").get("genre").asText());
+        assertNull(snapshot.game("Portal"));
+    }
+
+    @Test
+    public void sharedTableKeepsTheLastLibrary() throws IOException {
+        GenreMap genreMap = new GenreMap(new ArrayList<Game>());
+        ReportSnapshot.GameTotals totals = new ReportSnapshot.GameTotals(false);
+        totals.add(List.of(new Game(1, 10, "Lost Ark", 120, 0)), genreMap);
+        totals.add(List.of(new Game(2, 10, "Lost Ark", 30, 0)), genreMap);
+
+        JsonNode lostArk = game(recorder().build(totals), "Lost Ark");
+        assertEquals("Unknown", lostArk.get("genre").asText());
+        assertEquals(30, lostArk.get("minutes_played").asLong());
+        assertEquals(2, lostArk.get("owners").asInt());
+    }
+
+    @Test
+    public void gameListMatchesTheSameGamesInBatches() throws IOException {
+        List<Game> gameList = List.of(new Game(1, 10, "Lost Ark", 120, 0), new Game(2, 10, "Lost Ark", 30, 0));
+        GenreMap genreMap = new GenreMap(gameList);
+        genreMap.getMap().put("Lost Ark", "MMORPG");
+        ReportSnapshot.GameTotals totals = new ReportSnapshot.GameTotals(true);
+        totals.add(gameList.subList(0, 1), genreMap);
+        totals.add(gameList.subList(1, 2), genreMap);
+
+        assertEquals(game(recorder().build(gameList, genreMap, true), "Lost Ark"),
+            game(recorder().build(totals), "Lost Ark"));
+    }
+
+    private ReportSnapshot.Recorder recorder() throws IOException {
+        return new ReportSnapshot.Recorder(ResultSink.open(folder.newFile(), "json"));
+    }
+
+    private JsonNode game(ReportSnapshot snapshot, String name) throws IOException {
+        byte[] game = snapshot.game(name);
+        assertNotNull(name + " is not served", game);
+        return objectMapper.readTree(game);
+    }
+}
@@ -0,0 +1,90 @@
+package mygroup;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Tests how the {@link ResilientHttpClient} resolves a host's {@link CircuitBreaker}.
+ */
+public class ResilientHttpClientTest {
+    private static final long OPEN_MILLIS = 50;
+
+    private final CountDownLatch slowStarted = new CountDownLatch(1);
+    private final CountDownLatch slowReleased = new CountDownLatch(1);
+    private HttpServer server;
+    private ResilientHttpClient client;
+
+    @Before
+    public void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext("/fail", exchange -> respond(exchange, 500));
+        server.createContext("/ok", exchange -> respond(exchange, 200));
+        server.createContext("/slow", exchange -> {
+            slowStarted.countDown();
+            try {
+                slowReleased.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            respond(exchange, 200);
+        });
+        server.start();
+        client = new ResilientHttpClient(HttpClient.newHttpClient(), Duration.ofSeconds(10), Duration.ZERO,
+            new RetryPolicy(1, 0, 0), 0, 0, 1, OPEN_MILLIS);
+    }
+
+    @After
+    public void tearDown() {
+        slowReleased.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void interruptedTrialReopensTheBreaker() throws Exception {
+        assertEquals(500, send("/fail"));
+        Thread.sleep(OPEN_MILLIS * 2);
+
+        AtomicReference<Exception> trialFailure = new AtomicReference<Exception>();
+        Thread trial = new Thread(() -> {
+            try {
+                send("/slow");
+            } catch (Exception e) {
+                trialFailure.set(e);
+            }
+        });
+        trial.start();
+        assertTrue(slowStarted.await(5, TimeUnit.SECONDS));
+        trial.interrupt();
+        trial.join(5000);
+        assertTrue(trialFailure.get() instanceof InterruptedException);
+
+        // the trial counted as failed, so a new one is let through once the breaker's period is over
+        Thread.sleep(OPEN_MILLIS * 2);
+        assertEquals(200, send("/ok"));
+    }
+
+    private int send(String path) throws IOException, InterruptedException {
+        String url = "http://127.0.0.1:" + server.getAddress().getPort() + path;
+        return client.send(client.newRequest(url).build(), HttpResponse.BodyHandlers.discarding(), 1, false)
+            .statusCode();
+    }
+
+    private static void respond(HttpExchange exchange, int status) throws IOException {
+        exchange.sendResponseHeaders(status, -1);
+        exchange.close();
+    }
+}
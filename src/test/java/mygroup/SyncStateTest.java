@@ -0,0 +1,19 @@
+package mygroup;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+/**
+ * Tests how {@link SyncState} classifies games against their recorded fingerprints.
+ */
+public class SyncStateTest {
+
+    @Test
+    public void genreChangeIsAnUpdate() {
+        SyncState syncState = new SyncState();
+        Game game = new Game("Lost Ark", "120", "1700000000");
+        assertEquals(SyncState.Change.INSERTED, syncState.classify(game, "Unknown"));
+        syncState.record(game, "Unknown");
+        assertEquals(SyncState.Change.UNCHANGED, syncState.classify(game, "Unknown"));
+        assertEquals(SyncState.Change.UPDATED, syncState.classify(game, "MMORPG"));
+    }
+}